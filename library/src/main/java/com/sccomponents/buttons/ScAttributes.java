@@ -0,0 +1,391 @@
+package com.sccomponents.buttons;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.support.v4.util.LongSparseArray;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable snapshot of the ScButtons styled attributes.
+ * The default values coming from the theme, the default style attribute and the style
+ * resource are resolved only once for every combination and cached, so inflating many
+ * components will read from the XML only the attributes really declared.
+ * The snapshot is read by the component and by its inherited classes in a single pass.
+ * NOTE that the cache is keyed by the theme instance so a theme changed after the first
+ * inflation will not be considered.
+ */
+
+final class ScAttributes {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int KIND_STRING = 0;
+    private static final int KIND_BOOLEAN = 1;
+    private static final int KIND_INT = 2;
+    private static final int KIND_FLOAT = 3;
+    private static final int KIND_DIMENSION = 4;
+    private static final int KIND_COLOR = 5;
+
+    // Used in cache when the defaults cannot be resolved without the XML
+    private static final ScAttributes UNRESOLVED = new ScAttributes(0);
+
+    private static int[] mKinds = null;
+    private static Map<Resources.Theme, LongSparseArray<ScAttributes>> mCache = null;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private final boolean[] mHas;
+    private final int[] mInts;
+    private final float[] mFloats;
+    private final String[] mStrings;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScAttributes(int size) {
+        this.mHas = new boolean[size];
+        this.mInts = new int[size];
+        this.mFloats = new float[size];
+        this.mStrings = new String[size];
+    }
+
+    private ScAttributes(ScAttributes source, TypedArray array) {
+        this(R.styleable.ScButtons.length);
+
+        // Copy the source
+        if (source != null) {
+            System.arraycopy(source.mHas, 0, this.mHas, 0, this.mHas.length);
+            System.arraycopy(source.mInts, 0, this.mInts, 0, this.mInts.length);
+            System.arraycopy(source.mFloats, 0, this.mFloats, 0, this.mFloats.length);
+            System.arraycopy(source.mStrings, 0, this.mStrings, 0, this.mStrings.length);
+        }
+
+        // Override with the array values
+        this.read(array);
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the kind of every attribute.
+     * The styleable indexes of a library are not constants so cannot be used in a switch.
+     *
+     * @return the kinds by index
+     */
+    private static synchronized int[] getKinds() {
+        // Check if already created
+        if (ScAttributes.mKinds != null)
+            return ScAttributes.mKinds;
+
+        // Default is string as the new array is filled by zero
+        int[] kinds = new int[R.styleable.ScButtons.length];
+
+        // Booleans
+        kinds[R.styleable.ScButtons_async] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_selected] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_bold] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_italic] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_allCaps] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_showLed] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_onlyOneSelected] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_pressFeedback] = ScAttributes.KIND_BOOLEAN;
+        kinds[R.styleable.ScButtons_autoSize] = ScAttributes.KIND_BOOLEAN;
+
+        // Integers and enumerators
+        kinds[R.styleable.ScButtons_align] = ScAttributes.KIND_INT;
+        kinds[R.styleable.ScButtons_filling] = ScAttributes.KIND_INT;
+        kinds[R.styleable.ScButtons_renderMode] = ScAttributes.KIND_INT;
+        kinds[R.styleable.ScButtons_animationDuration] = ScAttributes.KIND_INT;
+        kinds[R.styleable.ScButtons_playMode] = ScAttributes.KIND_INT;
+        kinds[R.styleable.ScButtons_preloadCount] = ScAttributes.KIND_INT;
+
+        // Floats
+        kinds[R.styleable.ScButtons_volume] = ScAttributes.KIND_FLOAT;
+
+        // Dimensions
+        kinds[R.styleable.ScButtons_fontSize] = ScAttributes.KIND_DIMENSION;
+        kinds[R.styleable.ScButtons_strokeSize] = ScAttributes.KIND_DIMENSION;
+        kinds[R.styleable.ScButtons_cornerRadius] = ScAttributes.KIND_DIMENSION;
+        kinds[R.styleable.ScButtons_minFontSize] = ScAttributes.KIND_DIMENSION;
+        kinds[R.styleable.ScButtons_maxFontSize] = ScAttributes.KIND_DIMENSION;
+        kinds[R.styleable.ScButtons_fontSizeGranularity] = ScAttributes.KIND_DIMENSION;
+
+        // Colors
+        kinds[R.styleable.ScButtons_color] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_ledOnColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_ledOffColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_textOnColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_textOffColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_onColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_offColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_backgroundColor] = ScAttributes.KIND_COLOR;
+        kinds[R.styleable.ScButtons_rippleColor] = ScAttributes.KIND_COLOR;
+
+        // Strings
+        kinds[R.styleable.ScButtons_fontFamily] = ScAttributes.KIND_STRING;
+        kinds[R.styleable.ScButtons_text] = ScAttributes.KIND_STRING;
+        kinds[R.styleable.ScButtons_textOn] = ScAttributes.KIND_STRING;
+        kinds[R.styleable.ScButtons_textOff] = ScAttributes.KIND_STRING;
+        kinds[R.styleable.ScButtons_group] = ScAttributes.KIND_STRING;
+        kinds[R.styleable.ScButtons_source] = ScAttributes.KIND_STRING;
+
+        // Save and return
+        ScAttributes.mKinds = kinds;
+        return kinds;
+    }
+
+    /**
+     * Read all the values defined inside the array in a single pass
+     *
+     * @param array the source
+     */
+    private void read(TypedArray array) {
+        // Holders
+        int[] kinds = ScAttributes.getKinds();
+        int count = array.getIndexCount();
+
+        // Cycle all the defined values only
+        for (int position = 0; position < count; position++) {
+            int index = array.getIndex(position);
+            if (index < 0 || index >= this.mHas.length)
+                continue;
+
+            switch (kinds[index]) {
+                case ScAttributes.KIND_BOOLEAN:
+                    this.mInts[index] = array.getBoolean(index, false) ? 1 : 0;
+                    break;
+
+                case ScAttributes.KIND_INT:
+                    this.mInts[index] = array.getInt(index, 0);
+                    break;
+
+                case ScAttributes.KIND_FLOAT:
+                    this.mFloats[index] = array.getFloat(index, 0.0f);
+                    break;
+
+                case ScAttributes.KIND_DIMENSION:
+                    this.mFloats[index] = array.getDimension(index, 0.0f);
+                    break;
+
+                case ScAttributes.KIND_COLOR:
+                    this.mInts[index] = array.getColor(index, 0);
+                    break;
+
+                default:
+                    this.mStrings[index] = array.getString(index);
+                    break;
+            }
+            this.mHas[index] = true;
+        }
+    }
+
+    /**
+     * Check if some value of the array is an unresolved reference to a theme attribute.
+     * This happen when the array is read without the theme.
+     *
+     * @param array the source
+     * @return true if have references
+     */
+    private static boolean hasThemeReferences(TypedArray array) {
+        TypedValue value = new TypedValue();
+        int count = array.getIndexCount();
+        for (int position = 0; position < count; position++)
+            if (array.getValue(array.getIndex(position), value) &&
+                    value.type == TypedValue.TYPE_ATTRIBUTE)
+                return true;
+        return false;
+    }
+
+    /**
+     * Resolve the default values.
+     * The values come from the theme, the default style attribute and the style resource.
+     * The style resource is read inside an empty theme so that it can override the default
+     * style attribute values like the system do.
+     *
+     * @param context      the context
+     * @param defStyleAttr the default style attribute
+     * @param styleRes     the style resource
+     * @return the defaults or the UNRESOLVED marker
+     */
+    private static ScAttributes resolveDefaults(Context context, int defStyleAttr, int styleRes) {
+        // Theme and default style attribute
+        TypedArray array = context.obtainStyledAttributes(
+                null, R.styleable.ScButtons, defStyleAttr, 0);
+        ScAttributes defaults = new ScAttributes(null, array);
+        array.recycle();
+
+        // Style resource
+        if (styleRes != 0) {
+            Resources.Theme empty = context.getResources().newTheme();
+            empty.applyStyle(styleRes, true);
+            array = empty.obtainStyledAttributes(R.styleable.ScButtons);
+
+            // The references to the theme attributes cannot be resolved in this way
+            if (ScAttributes.hasThemeReferences(array))
+                defaults = ScAttributes.UNRESOLVED;
+            else
+                defaults = new ScAttributes(defaults, array);
+            array.recycle();
+        }
+
+        // Return
+        return defaults;
+    }
+
+    /**
+     * Get the default values from cache or resolve them
+     *
+     * @param context      the context
+     * @param defStyleAttr the default style attribute
+     * @param styleRes     the style resource
+     * @return the defaults or the UNRESOLVED marker
+     */
+    private static synchronized ScAttributes getDefaults(
+            Context context, int defStyleAttr, int styleRes) {
+        // Create the cache
+        if (ScAttributes.mCache == null)
+            ScAttributes.mCache = new WeakHashMap<>();
+
+        // Find the theme cache
+        Resources.Theme theme = context.getTheme();
+        LongSparseArray<ScAttributes> themeCache = ScAttributes.mCache.get(theme);
+        if (themeCache == null) {
+            themeCache = new LongSparseArray<>();
+            ScAttributes.mCache.put(theme, themeCache);
+        }
+
+        // Find the defaults
+        long key = ((long) defStyleAttr << 32) | (styleRes & 0xFFFFFFFFL);
+        ScAttributes defaults = themeCache.get(key);
+        if (defaults == null) {
+            defaults = ScAttributes.resolveDefaults(context, defStyleAttr, styleRes);
+            themeCache.put(key, defaults);
+        }
+        return defaults;
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Get the attributes snapshot.
+     * The default values are taken from cache and only the XML declared values are read.
+     * If some XML value reference a theme attribute all the values will be resolved in the
+     * classic way.
+     *
+     * @param context      the context
+     * @param attrs        the XML attributes, can be null
+     * @param defStyleAttr the default style attribute
+     * @return the snapshot
+     */
+    static ScAttributes obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+        // Get the defaults
+        int styleRes = attrs != null ? attrs.getStyleAttribute() : 0;
+        ScAttributes defaults = ScAttributes.getDefaults(context, defStyleAttr, styleRes);
+
+        if (defaults != ScAttributes.UNRESOLVED) {
+            // Nothing declared
+            if (attrs == null)
+                return defaults;
+
+            // Read the raw XML values only
+            TypedArray array = context.getResources()
+                    .obtainAttributes(attrs, R.styleable.ScButtons);
+            try {
+                if (!ScAttributes.hasThemeReferences(array))
+                    return new ScAttributes(defaults, array);
+
+            } finally {
+                array.recycle();
+            }
+        }
+
+        // Resolve all in the classic way
+        TypedArray array = context
+                .obtainStyledAttributes(attrs, R.styleable.ScButtons, defStyleAttr, 0);
+        try {
+            return new ScAttributes(null, array);
+
+        } finally {
+            array.recycle();
+        }
+    }
+
+    /**
+     * Get a boolean value
+     *
+     * @param index    the styleable index
+     * @param defValue the default value
+     * @return the value
+     */
+    boolean getBoolean(int index, boolean defValue) {
+        return this.mHas[index] ? this.mInts[index] != 0 : defValue;
+    }
+
+    /**
+     * Get an integer or an enumerator value
+     *
+     * @param index    the styleable index
+     * @param defValue the default value
+     * @return the value
+     */
+    int getInt(int index, int defValue) {
+        return this.mHas[index] ? this.mInts[index] : defValue;
+    }
+
+    /**
+     * Get a float value
+     *
+     * @param index    the styleable index
+     * @param defValue the default value
+     * @return the value
+     */
+    float getFloat(int index, float defValue) {
+        return this.mHas[index] ? this.mFloats[index] : defValue;
+    }
+
+    /**
+     * Get a dimension value in pixel
+     *
+     * @param index    the styleable index
+     * @param defValue the default value
+     * @return the value
+     */
+    float getDimension(int index, float defValue) {
+        return this.mHas[index] ? this.mFloats[index] : defValue;
+    }
+
+    /**
+     * Get a color value
+     *
+     * @param index    the styleable index
+     * @param defValue the default value
+     * @return the value
+     */
+    int getColor(int index, int defValue) {
+        return this.mHas[index] ? this.mInts[index] : defValue;
+    }
+
+    /**
+     * Get a string value
+     *
+     * @param index the styleable index
+     * @return the value or null
+     */
+    String getString(int index) {
+        return this.mHas[index] ? this.mStrings[index] : null;
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.sccomponents.buttons;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single frame clock shared by all the library components that need to animate or to
+ * refresh periodically.
+ * All the registered listeners are called from the same frame callback on every display
+ * frame and the callback is not posted at all when no one is registered.
+ * NOTE that this class must be used from the main thread only.
+ */
+
+final class ScFrameClock {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final long FALLBACK_FRAME_DELAY = 16; // Milliseconds
+
+    private static ScFrameClock mInstance = null;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private List<OnFrameListener> mListeners = null;
+    private boolean mDispatching = false;
+    private boolean mPosted = false;
+
+    private Object mFrameCallback = null;
+    private Handler mHandler = null;
+    private Runnable mFallbackCallback = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScFrameClock() {
+        this.mListeners = new ArrayList<>();
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the shared instance
+     *
+     * @return the frame clock
+     */
+    static ScFrameClock getInstance() {
+        if (ScFrameClock.mInstance == null)
+            ScFrameClock.mInstance = new ScFrameClock();
+        return ScFrameClock.mInstance;
+    }
+
+    /**
+     * Post the callback for the next frame.
+     * The Choreographer is available only from Android 4.1 so before will be used a simple
+     * handler with a fixed delay.
+     */
+    private void postFrame() {
+        // Check if already posted
+        if (this.mPosted)
+            return;
+        this.mPosted = true;
+
+        // Post
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            this.postChoreographerFrame();
+        else {
+            if (this.mHandler == null) {
+                this.mHandler = new Handler(Looper.getMainLooper());
+                this.mFallbackCallback = new Runnable() {
+                    @Override
+                    public void run() {
+                        doFrame(System.nanoTime());
+                    }
+                };
+            }
+            this.mHandler.postDelayed(this.mFallbackCallback, ScFrameClock.FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    /**
+     * Post the callback using the choreographer
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postChoreographerFrame() {
+        // Create the callback only once
+        if (this.mFrameCallback == null)
+            this.mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    ScFrameClock.this.doFrame(frameTimeNanos);
+                }
+            };
+
+        // Post
+        Choreographer.getInstance()
+                .postFrameCallback((Choreographer.FrameCallback) this.mFrameCallback);
+    }
+
+    /**
+     * Dispatch the frame to all the registered listeners.
+     * While dispatching the removed listeners only leave an empty slot, so the list is never
+     * shifted and all the empty slots are compacted in a single pass at the end.
+     * The listeners registered while dispatching will receive the next frame.
+     *
+     * @param frameTimeNanos the frame time
+     */
+    private void doFrame(long frameTimeNanos) {
+        // Holder
+        this.mPosted = false;
+        this.mDispatching = true;
+
+        // Dispatch
+        int count = this.mListeners.size();
+        for (int index = 0; index < count; index++) {
+            // Check if still registered
+            OnFrameListener listener = this.mListeners.get(index);
+            if (listener == null)
+                continue;
+
+            try {
+                if (!listener.onFrame(frameTimeNanos) && this.mListeners.get(index) == listener)
+                    this.mListeners.set(index, null);
+
+            } catch (Exception e) {
+                if (this.mListeners.get(index) == listener)
+                    this.mListeners.set(index, null);
+                e.printStackTrace();
+            }
+        }
+        this.mDispatching = false;
+
+        // Remove the empty slots
+        int last = 0;
+        for (int index = 0; index < this.mListeners.size(); index++) {
+            OnFrameListener listener = this.mListeners.get(index);
+            if (listener != null)
+                this.mListeners.set(last++, listener);
+        }
+        this.mListeners.subList(last, this.mListeners.size()).clear();
+
+        // Next frame
+        if (this.mListeners.size() > 0)
+            this.postFrame();
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Register a listener to receive the frames.
+     * The listener will be called until it return false or until is unregistered.
+     *
+     * @param listener the listener
+     */
+    void register(OnFrameListener listener) {
+        if (listener != null && !this.mListeners.contains(listener)) {
+            this.mListeners.add(listener);
+            this.postFrame();
+        }
+    }
+
+    /**
+     * Unregister a listener
+     *
+     * @param listener the listener
+     */
+    void unregister(OnFrameListener listener) {
+        // While dispatching only empty the slot
+        if (this.mDispatching) {
+            int index = this.mListeners.indexOf(listener);
+            if (index >= 0)
+                this.mListeners.set(index, null);
+
+        } else
+            this.mListeners.remove(listener);
+    }
+
+    /**
+     * Check if a listener is registered
+     *
+     * @param listener the listener
+     * @return true if registered
+     */
+    boolean isRegistered(OnFrameListener listener) {
+        return this.mListeners.contains(listener);
+    }
+
+
+    // *******************************************************************************************
+    // Public listener and interface
+
+    /**
+     * Frame listener
+     */
+    interface OnFrameListener {
+
+        /**
+         * Called on every display frame
+         *
+         * @param frameTimeNanos the frame time in nanoseconds
+         * @return true to receive the next frame, false to be unregistered
+         */
+        boolean onFrame(long frameTimeNanos);
+
+    }
+
+}
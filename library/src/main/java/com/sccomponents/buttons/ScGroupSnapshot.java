@@ -0,0 +1,289 @@
+package com.sccomponents.buttons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact snapshot of the selection of all the toggle buttons groups.
+ * Every group is stored by its name and by a bitset of the selected buttons where the bit
+ * position is the button position inside the group.
+ * Can be exported as a byte array for persist it across the process death and restored
+ * applying the selection to the attached buttons.
+ * NOTE that the snapshot is positional so a group will be restored only if the number of its
+ * attached buttons is the same of when was captured.
+ */
+
+public final class ScGroupSnapshot {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int MAGIC = 0x53434753; // SCGS
+    private static final int VERSION = 1;
+    private static final int MAX_BUTTONS = 0xFFFF; // In a single group
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private Map<String, Entry> mEntries = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScGroupSnapshot() {
+        this.mEntries = new LinkedHashMap<>();
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * The single group selection
+     */
+    static final class Entry {
+
+        final int mCount;
+        final byte[] mBits;
+
+        Entry(int count, byte[] bits) {
+            this.mCount = count;
+            this.mBits = bits;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry))
+                return false;
+
+            Entry entry = (Entry) obj;
+            return this.mCount == entry.mCount && Arrays.equals(this.mBits, entry.mBits);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.mCount + Arrays.hashCode(this.mBits);
+        }
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Write an unsigned variable length integer
+     *
+     * @param stream the destination
+     * @param value  the value
+     * @throws IOException if fail to write
+     */
+    private static void writeVarInt(DataOutputStream stream, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            stream.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.writeByte(value);
+    }
+
+    /**
+     * Read an unsigned variable length integer
+     *
+     * @param stream the source
+     * @return the value
+     * @throws IOException if fail to read or the value is malformed
+     */
+    private static int readVarInt(DataInputStream stream) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int current = stream.readUnsignedByte();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed group snapshot");
+    }
+
+    /**
+     * Write a single group
+     *
+     * @param stream the destination
+     * @param group  the group name
+     * @param entry  the group selection
+     * @throws IOException if fail to write
+     */
+    static void writeEntry(DataOutputStream stream, String group, Entry entry)
+            throws IOException {
+        stream.writeUTF(group);
+        ScGroupSnapshot.writeVarInt(stream, entry.mCount);
+        stream.write(entry.mBits);
+    }
+
+    /**
+     * Read a single group and add it to the snapshot
+     *
+     * @param stream the source
+     * @throws IOException if fail to read or the data are not valid
+     */
+    void readEntry(DataInputStream stream) throws IOException {
+        String group = stream.readUTF();
+        int count = ScGroupSnapshot.readVarInt(stream);
+        if (count < 0 || count > ScGroupSnapshot.MAX_BUTTONS)
+            throw new IOException("Malformed group snapshot");
+
+        byte[] bits = new byte[(count + 7) / 8];
+        stream.readFully(bits);
+        this.mEntries.put(group, new Entry(count, bits));
+    }
+
+    /**
+     * Get the groups selection
+     *
+     * @return the entries by group name
+     */
+    Map<String, Entry> getEntries() {
+        return this.mEntries;
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Capture the selection of all the groups of the attached buttons
+     *
+     * @return the snapshot
+     */
+    @SuppressWarnings("unused")
+    public static ScGroupSnapshot capture() {
+        ScGroupSnapshot snapshot = new ScGroupSnapshot();
+        for (Map.Entry<String, List<ScToggleButton>> group :
+                ScToggleButton.getGroupsMap().entrySet()) {
+            // Build the bitset
+            List<ScToggleButton> list = group.getValue();
+            byte[] bits = new byte[(list.size() + 7) / 8];
+            for (int index = 0; index < list.size(); index++)
+                if (list.get(index).isSelected())
+                    bits[index / 8] |= 1 << (index % 8);
+
+            // Store
+            snapshot.mEntries.put(group.getKey(), new Entry(list.size(), bits));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Create a snapshot from its binary representation
+     *
+     * @param data the bytes created by the {@link #toByteArray()} method
+     * @return the snapshot
+     * @throws IOException if the data are not valid
+     */
+    @SuppressWarnings("unused")
+    public static ScGroupSnapshot fromByteArray(byte[] data) throws IOException {
+        DataInputStream stream = new DataInputStream(new ByteArrayInputStream(data));
+
+        // Check the header
+        if (stream.readInt() != ScGroupSnapshot.MAGIC ||
+                stream.readUnsignedByte() != ScGroupSnapshot.VERSION)
+            throw new IOException("Unknown group snapshot format");
+
+        // Read the groups
+        ScGroupSnapshot snapshot = new ScGroupSnapshot();
+        int count = ScGroupSnapshot.readVarInt(stream);
+        for (int index = 0; index < count; index++)
+            snapshot.readEntry(stream);
+        return snapshot;
+    }
+
+    /**
+     * Create an empty snapshot
+     *
+     * @return the snapshot
+     */
+    static ScGroupSnapshot empty() {
+        return new ScGroupSnapshot();
+    }
+
+    /**
+     * Export the snapshot in its binary representation.
+     * The format is an header followed by the groups count and, for each group, the name,
+     * the buttons count and the selection bitset.
+     *
+     * @return the bytes
+     */
+    @SuppressWarnings("unused")
+    public byte[] toByteArray() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(buffer);
+        try {
+            // Header
+            stream.writeInt(ScGroupSnapshot.MAGIC);
+            stream.writeByte(ScGroupSnapshot.VERSION);
+
+            // Groups
+            ScGroupSnapshot.writeVarInt(stream, this.mEntries.size());
+            for (Map.Entry<String, Entry> entry : this.mEntries.entrySet())
+                ScGroupSnapshot.writeEntry(stream, entry.getKey(), entry.getValue());
+
+            stream.flush();
+
+        } catch (IOException ex) {
+            // Never happen writing in memory
+            ex.printStackTrace();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Restore the selection on the attached buttons.
+     * Every group is applied at once with its constraints and only the buttons that really
+     * changed call their listener, the group listeners are called once per changed group.
+     */
+    @SuppressWarnings("unused")
+    public void restore() {
+        // Find all the attached groups with a single pass
+        Map<String, List<ScToggleButton>> groups = ScToggleButton.getGroupsMap();
+
+        // Apply
+        for (Map.Entry<String, Entry> entry : this.mEntries.entrySet()) {
+            List<ScToggleButton> list = groups.get(entry.getKey());
+            if (list != null && list.size() == entry.getValue().mCount)
+                ScToggleButton.reconcileGroup(list, entry.getValue().mBits);
+        }
+    }
+
+    /**
+     * Get the names of the groups inside the snapshot
+     *
+     * @return the groups name
+     */
+    @SuppressWarnings("unused")
+    public String[] getGroups() {
+        return this.mEntries.keySet().toArray(new String[this.mEntries.size()]);
+    }
+
+    /**
+     * Check if a button was selected when the snapshot was captured
+     *
+     * @param group the group name
+     * @param index the button position inside the group
+     * @return true if selected
+     */
+    @SuppressWarnings("unused")
+    public boolean isSelected(String group, int index) {
+        Entry entry = this.mEntries.get(group);
+        return entry != null && index >= 0 && index < entry.mCount &&
+                (entry.mBits[index / 8] & (1 << (index % 8))) != 0;
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.sccomponents.buttons;
+
+import android.content.Context;
+import android.support.v4.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+
+/**
+ * File backed store of the groups selection.
+ * Every group is written in its own atomic file so saving a snapshot rewrite only the
+ * groups that changed from the last save.
+ * NOTE that the store is not thread safe and the files are written on the caller thread.
+ */
+
+public final class ScGroupStore {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final String DIRECTORY = "sc_groups";
+    private static final String FILE_PREFIX = "g_";
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private File mDirectory = null;
+    private ScGroupSnapshot mSaved = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    public ScGroupStore(Context context, String name) {
+        this.mDirectory = new File(
+                new File(context.getFilesDir(), ScGroupStore.DIRECTORY), name);
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the file where store the group
+     *
+     * @param group the group name
+     * @return the atomic file
+     */
+    private AtomicFile getFile(String group) {
+        String name;
+        try {
+            name = URLEncoder.encode(group, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            name = Integer.toHexString(group.hashCode());
+        }
+        return new AtomicFile(new File(this.mDirectory, ScGroupStore.FILE_PREFIX + name));
+    }
+
+    /**
+     * Read all the stored groups only the first time
+     *
+     * @return the last saved snapshot
+     */
+    private ScGroupSnapshot getSaved() {
+        // Check if already loaded
+        if (this.mSaved != null)
+            return this.mSaved;
+        this.mSaved = ScGroupSnapshot.empty();
+
+        // Check for empty values
+        File[] files = this.mDirectory.listFiles();
+        if (files == null)
+            return this.mSaved;
+
+        // Read every group file
+        for (File file : files) {
+            if (!file.getName().startsWith(ScGroupStore.FILE_PREFIX) ||
+                    file.getName().endsWith(".bak"))
+                continue;
+
+            DataInputStream stream = null;
+            try {
+                FileInputStream input = new AtomicFile(file).openRead();
+                stream = new DataInputStream(input);
+                this.mSaved.readEntry(stream);
+
+            } catch (IOException ex) {
+                ex.printStackTrace();
+
+            } finally {
+                if (stream != null)
+                    try {
+                        stream.close();
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+            }
+        }
+        return this.mSaved;
+    }
+
+    /**
+     * Write a single group
+     *
+     * @param group the group name
+     * @param entry the group selection
+     * @return true if written
+     */
+    private boolean write(String group, ScGroupSnapshot.Entry entry) {
+        // Check the directory
+        if (!this.mDirectory.exists() && !this.mDirectory.mkdirs())
+            return false;
+
+        AtomicFile file = this.getFile(group);
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream stream = new DataOutputStream(output);
+            ScGroupSnapshot.writeEntry(stream, group, entry);
+            stream.flush();
+
+            file.finishWrite(output);
+            return true;
+
+        } catch (IOException ex) {
+            if (output != null)
+                file.failWrite(output);
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Save the groups of the snapshot.
+     * Only the groups that changed from the last save will be written, the stored groups
+     * not present inside the snapshot are kept.
+     *
+     * @param snapshot the snapshot
+     * @return the number of written groups
+     */
+    @SuppressWarnings("unused")
+    public int save(ScGroupSnapshot snapshot) {
+        Map<String, ScGroupSnapshot.Entry> saved = this.getSaved().getEntries();
+
+        int written = 0;
+        for (Map.Entry<String, ScGroupSnapshot.Entry> entry :
+                snapshot.getEntries().entrySet()) {
+            // Check if changed
+            if (entry.getValue().equals(saved.get(entry.getKey())))
+                continue;
+
+            // Write and remember
+            if (this.write(entry.getKey(), entry.getValue())) {
+                saved.put(entry.getKey(), entry.getValue());
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Capture the current groups selection and save it
+     *
+     * @return the number of written groups
+     */
+    @SuppressWarnings("unused")
+    public int save() {
+        return this.save(ScGroupSnapshot.capture());
+    }
+
+    /**
+     * Load the stored groups
+     *
+     * @return the snapshot
+     */
+    @SuppressWarnings("unused")
+    public ScGroupSnapshot load() {
+        return this.getSaved();
+    }
+
+    /**
+     * Restore the stored groups on the attached buttons
+     */
+    @SuppressWarnings("unused")
+    public void restore() {
+        this.getSaved().restore();
+    }
+
+    /**
+     * Remove a group from the store
+     *
+     * @param group the group name
+     */
+    @SuppressWarnings("unused")
+    public void remove(String group) {
+        this.getFile(group).delete();
+        this.getSaved().getEntries().remove(group);
+    }
+
+    /**
+     * Remove all the groups from the store
+     */
+    @SuppressWarnings("unused")
+    public void clear() {
+        for (String group : this.getSaved().getGroups())
+            this.remove(group);
+    }
+
+}
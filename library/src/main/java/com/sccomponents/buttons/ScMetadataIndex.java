@@ -0,0 +1,416 @@
+package com.sccomponents.buttons;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Persistent index of the media metadata stored inside the app cache directory.
+ * The index is a memory mapped file of fixed size slots addressed by the 64 bit hash of the
+ * source so a lookup read just one or few slots without parse the whole file and without
+ * any media I/O. Every slot hold the source length and a second independent hash, so two
+ * sources with the same main hash are never confused, and the source size and last modified
+ * time, that are checked on lookup so a changed file will be considered missing.
+ * NOTE that the index do file I/O so it must not be used from the main thread.
+ * When the index become too full it is rewritten with the double of the slots.
+ */
+
+final class ScMetadataIndex {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final String FILE_NAME = "sc_media_index.bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x53434D49; // SCMI
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 48;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    // Slot fields offset
+    private static final int HASH = 0;
+    private static final int SIZE = 8;
+    private static final int MODIFIED = 16;
+    private static final int DURATION = 24;
+    private static final int SAMPLE_RATE = 28;
+    private static final int CHANNELS = 32;
+    private static final int LENGTH = 36;
+    private static final int CHECK = 40;
+
+    private static ScMetadataIndex mInstance = null;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private File mFile = null;
+    private MappedByteBuffer mBuffer = null;
+    private boolean mOpened = false;
+    private int mCapacity = 0;
+    private int mCount = 0;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScMetadataIndex(File file) {
+        this.mFile = file;
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * The indexed metadata
+     */
+    static final class Entry {
+
+        final int mDuration;
+        final int mSampleRate;
+        final int mChannels;
+
+        Entry(int duration, int sampleRate, int channels) {
+            this.mDuration = duration;
+            this.mSampleRate = sampleRate;
+            this.mChannels = channels;
+        }
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the shared index
+     *
+     * @param context the context
+     * @return the index
+     */
+    static synchronized ScMetadataIndex getInstance(Context context) {
+        if (ScMetadataIndex.mInstance == null)
+            ScMetadataIndex.mInstance = new ScMetadataIndex(
+                    new File(context.getApplicationContext().getCacheDir(),
+                            ScMetadataIndex.FILE_NAME));
+        return ScMetadataIndex.mInstance;
+    }
+
+    /**
+     * Calculate the 64 bit FNV-1a hash of the source.
+     * The zero value is reserved to mark the empty slots.
+     *
+     * @param source the source
+     * @return the hash
+     */
+    private static long hash(String source) {
+        long hash = 0xCBF29CE484222325L;
+        for (int index = 0; index < source.length(); index++) {
+            hash ^= source.charAt(index);
+            hash *= 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Calculate the 64 bit polynomial hash of the source.
+     * Used to check the source identity inside a slot, it is independent from the main hash.
+     *
+     * @param source the source
+     * @return the hash
+     */
+    private static long check(String source) {
+        long hash = 1125899906842597L;
+        for (int index = 0; index < source.length(); index++)
+            hash = 31 * hash + source.charAt(index);
+        return hash;
+    }
+
+    /**
+     * Open the index file the first time, if not valid will be created again
+     *
+     * @return true if opened
+     */
+    private boolean open() {
+        // Check if already done
+        if (this.mOpened)
+            return this.mBuffer != null;
+        this.mOpened = true;
+
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(this.mFile, "rw");
+
+            // Check the header
+            boolean valid = false;
+            if (file.length() >= ScMetadataIndex.HEADER_SIZE) {
+                int magic = file.readInt();
+                int version = file.readInt();
+                int capacity = file.readInt();
+                int count = file.readInt();
+                valid = magic == ScMetadataIndex.MAGIC &&
+                        version == ScMetadataIndex.VERSION &&
+                        capacity > 0 && (capacity & (capacity - 1)) == 0 &&
+                        count >= 0 && count <= capacity &&
+                        file.length() == ScMetadataIndex.HEADER_SIZE +
+                                (long) capacity * ScMetadataIndex.SLOT_SIZE;
+            }
+
+            // Map or create
+            if (valid) {
+                this.mBuffer = file.getChannel().map(
+                        FileChannel.MapMode.READ_WRITE, 0, file.length());
+                this.mCapacity = this.mBuffer.getInt(8);
+                this.mCount = this.mBuffer.getInt(12);
+            } else {
+                file.close();
+                file = null;
+                this.create(this.mFile, ScMetadataIndex.INITIAL_CAPACITY);
+            }
+
+        } catch (IOException ex) {
+            this.mBuffer = null;
+            ex.printStackTrace();
+
+        } finally {
+            // The mapping remain valid after close the file
+            if (file != null)
+                try {
+                    file.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+        }
+        return this.mBuffer != null;
+    }
+
+    /**
+     * Create an empty index and map it.
+     * The current mapping is replaced only if everything goes right.
+     *
+     * @param target   the index file
+     * @param capacity the slots number
+     * @throws IOException if fail
+     */
+    private void create(File target, int capacity) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(target, "rw");
+        try {
+            // The new file is filled by zero so all the slots are empty
+            long length = ScMetadataIndex.HEADER_SIZE +
+                    (long) capacity * ScMetadataIndex.SLOT_SIZE;
+            file.setLength(0);
+            file.setLength(length);
+
+            // Map and write the header
+            MappedByteBuffer buffer = file.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, ScMetadataIndex.MAGIC);
+            buffer.putInt(4, ScMetadataIndex.VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, 0);
+
+            // Replace
+            this.mBuffer = buffer;
+            this.mCapacity = capacity;
+            this.mCount = 0;
+
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Find the slot position of the source.
+     * A slot belong to the source only if the hash, the source length and the check hash
+     * are all the same.
+     *
+     * @param hash   the source hash
+     * @param length the source length
+     * @param check  the source check hash
+     * @return the slot position, holding the source or empty, or -1 if the index is full
+     */
+    private int find(long hash, int length, long check) {
+        int mask = this.mCapacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        // Linear probing
+        for (int probe = 0; probe < this.mCapacity; probe++) {
+            int position = ScMetadataIndex.HEADER_SIZE + slot * ScMetadataIndex.SLOT_SIZE;
+            long current = this.mBuffer.getLong(position + ScMetadataIndex.HASH);
+            if (current == 0)
+                return position;
+            if (current == hash &&
+                    this.mBuffer.getInt(position + ScMetadataIndex.LENGTH) == length &&
+                    this.mBuffer.getLong(position + ScMetadataIndex.CHECK) == check)
+                return position;
+
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Write a slot
+     *
+     * @param position the slot position
+     * @param hash     the source hash
+     * @param length   the source length
+     * @param check    the source check hash
+     * @param size     the source size
+     * @param modified the source last modified time
+     * @param entry    the metadata
+     */
+    private void write(int position, long hash, int length, long check,
+                       long size, long modified, Entry entry) {
+        // The hash is written as last so an interrupted write leave the slot empty
+        this.mBuffer.putInt(position + ScMetadataIndex.LENGTH, length);
+        this.mBuffer.putLong(position + ScMetadataIndex.CHECK, check);
+        this.mBuffer.putLong(position + ScMetadataIndex.SIZE, size);
+        this.mBuffer.putLong(position + ScMetadataIndex.MODIFIED, modified);
+        this.mBuffer.putInt(position + ScMetadataIndex.DURATION, entry.mDuration);
+        this.mBuffer.putInt(position + ScMetadataIndex.SAMPLE_RATE, entry.mSampleRate);
+        this.mBuffer.putInt(position + ScMetadataIndex.CHANNELS, entry.mChannels);
+        this.mBuffer.putLong(position + ScMetadataIndex.HASH, hash);
+    }
+
+    /**
+     * Rewrite the index with the double of the slots.
+     * The new index is built on a temporary file that replace the current only when complete
+     * so the current mapping remain always valid.
+     * When the maximum size is reached the index restart from empty.
+     *
+     * @throws IOException if fail
+     */
+    private void grow() throws IOException {
+        // Read all the current slots
+        int count = 0;
+        long[] hashes = new long[this.mCount];
+        int[] lengths = new int[this.mCount];
+        long[] checks = new long[this.mCount];
+        long[] sizes = new long[this.mCount];
+        long[] modifies = new long[this.mCount];
+        Entry[] entries = new Entry[this.mCount];
+
+        for (int slot = 0; slot < this.mCapacity && count < this.mCount; slot++) {
+            int position = ScMetadataIndex.HEADER_SIZE + slot * ScMetadataIndex.SLOT_SIZE;
+            long hash = this.mBuffer.getLong(position + ScMetadataIndex.HASH);
+            if (hash == 0)
+                continue;
+
+            hashes[count] = hash;
+            lengths[count] = this.mBuffer.getInt(position + ScMetadataIndex.LENGTH);
+            checks[count] = this.mBuffer.getLong(position + ScMetadataIndex.CHECK);
+            sizes[count] = this.mBuffer.getLong(position + ScMetadataIndex.SIZE);
+            modifies[count] = this.mBuffer.getLong(position + ScMetadataIndex.MODIFIED);
+            entries[count] = new Entry(
+                    this.mBuffer.getInt(position + ScMetadataIndex.DURATION),
+                    this.mBuffer.getInt(position + ScMetadataIndex.SAMPLE_RATE),
+                    this.mBuffer.getInt(position + ScMetadataIndex.CHANNELS));
+            count++;
+        }
+
+        // Create the new file
+        int capacity = this.mCapacity * 2;
+        if (capacity > ScMetadataIndex.MAX_CAPACITY) {
+            capacity = ScMetadataIndex.INITIAL_CAPACITY;
+            count = 0;
+        }
+
+        File temp = new File(this.mFile.getPath() + ScMetadataIndex.TEMP_SUFFIX);
+        this.create(temp, capacity);
+
+        // Insert again
+        for (int index = 0; index < count; index++)
+            this.write(this.find(hashes[index], lengths[index], checks[index]),
+                    hashes[index], lengths[index], checks[index],
+                    sizes[index], modifies[index], entries[index]);
+        this.mCount = count;
+        this.mBuffer.putInt(12, count);
+
+        // Replace the index file
+        if (!temp.renameTo(this.mFile))
+            throw new IOException("Cannot replace the media index");
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Find the source metadata
+     *
+     * @param source   the source
+     * @param size     the source size or -1 if unknown
+     * @param modified the source last modified time or -1 if unknown
+     * @return the metadata or null if not indexed or changed
+     */
+    synchronized Entry get(String source, long size, long modified) {
+        // Check the index
+        if (!this.open())
+            return null;
+
+        // Find
+        int position = this.find(ScMetadataIndex.hash(source),
+                source.length(), ScMetadataIndex.check(source));
+        if (position < 0 || this.mBuffer.getLong(position + ScMetadataIndex.HASH) == 0)
+            return null;
+
+        // Check the fingerprint
+        if (this.mBuffer.getLong(position + ScMetadataIndex.SIZE) != size ||
+                this.mBuffer.getLong(position + ScMetadataIndex.MODIFIED) != modified)
+            return null;
+
+        // Return
+        return new Entry(
+                this.mBuffer.getInt(position + ScMetadataIndex.DURATION),
+                this.mBuffer.getInt(position + ScMetadataIndex.SAMPLE_RATE),
+                this.mBuffer.getInt(position + ScMetadataIndex.CHANNELS));
+    }
+
+    /**
+     * Add or update the source metadata
+     *
+     * @param source   the source
+     * @param size     the source size or -1 if unknown
+     * @param modified the source last modified time or -1 if unknown
+     * @param entry    the metadata
+     */
+    synchronized void put(String source, long size, long modified, Entry entry) {
+        // Check the index
+        if (!this.open())
+            return;
+
+        try {
+            // Keep the load factor under the 75%
+            if ((this.mCount + 1) * 4 > this.mCapacity * 3)
+                this.grow();
+
+            // Find the slot
+            long hash = ScMetadataIndex.hash(source);
+            long check = ScMetadataIndex.check(source);
+            int position = this.find(hash, source.length(), check);
+            if (position < 0)
+                return;
+
+            // Write
+            boolean added = this.mBuffer.getLong(position + ScMetadataIndex.HASH) == 0;
+            this.write(position, hash, source.length(), check, size, modified, entry);
+            if (added) {
+                this.mCount++;
+                this.mBuffer.putInt(12, this.mCount);
+            }
+
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+}
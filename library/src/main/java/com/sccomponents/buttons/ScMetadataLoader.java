@@ -0,0 +1,439 @@
+package com.sccomponents.buttons;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load the media metadata outside the main thread.
+ * The results are kept inside a bounded memory cache keyed by the source path, that is the
+ * only thing checked on the main thread. The loader threads check the persistent index, keyed
+ * by the source and, when the source is a local file, by its size and its last modified time
+ * so a changed file will be read again, and read the media only if not indexed. So after a
+ * cold start the metadata will be found without any media I/O.
+ * The requests for the same source are done only once and all the listeners will be
+ * notified on the main thread. The requests of the visible components are executed before
+ * the prefetch requests.
+ * NOTE that the requests must be done from the main thread.
+ */
+
+final class ScMetadataLoader {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int CACHE_SIZE = 256;
+    private static final int MAX_THREADS = 4;
+    private static final int KEEP_ALIVE = 10; // Seconds
+
+    static final int PRIORITY_VISIBLE = 0;
+    static final int PRIORITY_PREFETCH = 1;
+
+    private static LruCache<String, ScMetadataIndex.Entry> mMetadata = null;
+    private static Map<String, LoadTask> mPending = null;
+    private static ThreadPoolExecutor mExecutor = null;
+    private static Handler mHandler = null;
+    private static long mSequence = 0;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScMetadataLoader() {
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * A media source with its fingerprint
+     */
+    private static final class Source {
+
+        final String mSource;
+        final long mSize;
+        final long mModified;
+
+        Source(String source, long size, long modified) {
+            this.mSource = source;
+            this.mSize = size;
+            this.mModified = modified;
+        }
+
+    }
+
+
+    /**
+     * A queued load.
+     * The tasks are ordered by priority and then by request order.
+     */
+    private static final class LoadTask implements Runnable, Comparable<LoadTask> {
+
+        final Context mContext;
+        final String mSource;
+        final List<OnLoadListener> mListeners;
+        volatile int mPriority;
+        long mSequence;
+
+        LoadTask(Context context, String source, int priority) {
+            this.mContext = context;
+            this.mSource = source;
+            this.mListeners = new ArrayList<>();
+            this.mPriority = priority;
+            this.mSequence = ScMetadataLoader.mSequence++;
+        }
+
+        @Override
+        public int compareTo(LoadTask other) {
+            if (this.mPriority != other.mPriority)
+                return this.mPriority < other.mPriority ? -1 : 1;
+            return this.mSequence < other.mSequence ? -1 :
+                    (this.mSequence == other.mSequence ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            ScMetadataIndex.Entry indexed;
+            try {
+                // Find the fingerprint and check the index
+                Source source = ScMetadataLoader.resolve(this.mSource);
+                ScMetadataIndex index = ScMetadataIndex.getInstance(this.mContext);
+                indexed = index.get(source.mSource, source.mSize, source.mModified);
+
+                // Read and store in the index, the failed reads will be tried again on the
+                // next start.
+                if (indexed == null) {
+                    indexed = ScMetadataLoader.readMetadata(this.mContext, source.mSource);
+                    if (indexed.mDuration > 0)
+                        index.put(source.mSource, source.mSize, source.mModified, indexed);
+                }
+
+            } catch (Exception ex) {
+                // Print the error on the stack
+                ex.printStackTrace();
+
+                // Always deliver so the pending request is closed
+                indexed = new ScMetadataIndex.Entry(0, 0, 0);
+            }
+
+            // Deliver on the main thread
+            final ScMetadataIndex.Entry entry = indexed;
+            ScMetadataLoader.mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    ScMetadataLoader.deliver(LoadTask.this.mSource, entry);
+                }
+            });
+        }
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the shared executor creating it the first time.
+     * The pool is bounded and the idle threads terminate so when there is nothing to load no
+     * thread is held. The threads run with background priority.
+     *
+     * @return the executor
+     */
+    private static ThreadPoolExecutor getExecutor() {
+        if (ScMetadataLoader.mExecutor == null) {
+            int threads = Math.max(1, Math.min(ScMetadataLoader.MAX_THREADS,
+                    Runtime.getRuntime().availableProcessors() - 1));
+            ScMetadataLoader.mExecutor = new ThreadPoolExecutor(
+                    threads, threads,
+                    ScMetadataLoader.KEEP_ALIVE, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            Thread thread = new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                    runnable.run();
+                                }
+                            }, "ScMetadataLoader");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            ScMetadataLoader.mExecutor.allowCoreThreadTimeOut(true);
+        }
+        return ScMetadataLoader.mExecutor;
+    }
+
+    /**
+     * Get the memory cache creating it the first time
+     *
+     * @return the cache
+     */
+    private static LruCache<String, ScMetadataIndex.Entry> getMetadata() {
+        if (ScMetadataLoader.mMetadata == null)
+            ScMetadataLoader.mMetadata = new LruCache<>(ScMetadataLoader.CACHE_SIZE);
+        return ScMetadataLoader.mMetadata;
+    }
+
+    /**
+     * Get the source with its fingerprint.
+     * For the local files the size and the last modified time are part of the fingerprint,
+     * for the other sources are unknown.
+     * This method access the file system and must not be called from the main thread.
+     *
+     * @param source the media path
+     * @return the source
+     */
+    private static Source resolve(String source) {
+        // Local file
+        Uri uri = Uri.parse(source);
+        String path = uri.getScheme() == null || "file".equals(uri.getScheme()) ?
+                uri.getPath() : null;
+        if (path != null) {
+            File file = new File(path);
+            if (file.isFile())
+                return new Source(source, file.length(), file.lastModified());
+        }
+
+        // Other sources
+        return new Source(source, -1, -1);
+    }
+
+    /**
+     * Retrieve the media metadata.
+     * This method is slow and must not be called from the main thread.
+     *
+     * @param context the context
+     * @param source  the media path
+     * @return the metadata
+     */
+    private static ScMetadataIndex.Entry readMetadata(Context context, String source) {
+        int duration = ScMetadataLoader.readDuration(context, source);
+
+        // The audio format can be read only from Android 4.1
+        int[] format = new int[2];
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            ScMetadataLoader.readAudioFormat(context, source, format);
+
+        return new ScMetadataIndex.Entry(duration, format[0], format[1]);
+    }
+
+    /**
+     * Retrieve the sample rate and the channels count of the first audio track
+     *
+     * @param context the context
+     * @param source  the media path
+     * @param format  where put the sample rate and the channels count
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static void readAudioFormat(Context context, String source, int[] format) {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(context, Uri.parse(source), null);
+
+            // Find the first audio track
+            for (int index = 0; index < extractor.getTrackCount(); index++) {
+                MediaFormat track = extractor.getTrackFormat(index);
+                String mime = track.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    if (track.containsKey(MediaFormat.KEY_SAMPLE_RATE))
+                        format[0] = track.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                    if (track.containsKey(MediaFormat.KEY_CHANNEL_COUNT))
+                        format[1] = track.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                    break;
+                }
+            }
+
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
+
+        } finally {
+            extractor.release();
+        }
+    }
+
+    /**
+     * Retrieve the media duration in milliseconds.
+     * This method is slow and must not be called from the main thread.
+     *
+     * @param context the context
+     * @param source  the media path
+     * @return the duration in milliseconds
+     */
+    private static int readDuration(Context context, String source) {
+        // Try to create the retriever
+        MediaMetadataRetriever retriever = null;
+        try {
+            retriever = new MediaMetadataRetriever();
+            retriever.setDataSource(context, Uri.parse(source));
+            String durationStr = retriever
+                    .extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            return Integer.parseInt(durationStr);
+
+        } catch (Exception ex) {
+            // Print the error on the stack and return
+            ex.printStackTrace();
+
+        } finally {
+            // Release the retriever
+            if (retriever != null)
+                retriever.release();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Deliver the loaded metadata to all the listeners waiting for the source
+     *
+     * @param source the source path
+     * @param entry  the metadata
+     */
+    private static void deliver(String source, ScMetadataIndex.Entry entry) {
+        ScMetadataLoader.getMetadata().put(source, entry);
+
+        // Notify
+        LoadTask task = ScMetadataLoader.mPending.remove(source);
+        if (task != null)
+            for (OnLoadListener listener : task.mListeners)
+                try {
+                    listener.onLoaded(source, entry.mDuration);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Get the metadata from the memory cache.
+     * This method not do any I/O so can be called from the draw methods.
+     *
+     * @param source the source path
+     * @return the metadata or null if not loaded yet
+     */
+    static ScMetadataIndex.Entry getCachedMetadata(String source) {
+        return source == null ? null : ScMetadataLoader.getMetadata().get(source);
+    }
+
+    /**
+     * Get the duration from the memory cache.
+     * This method not do any I/O so can be called from the draw methods.
+     *
+     * @param source the source path
+     * @return the duration in milliseconds or null if not loaded yet
+     */
+    static Integer getCachedDuration(String source) {
+        ScMetadataIndex.Entry entry = ScMetadataLoader.getCachedMetadata(source);
+        return entry == null ? null : entry.mDuration;
+    }
+
+    /**
+     * Load the source duration on the background and notify the listener on the main thread.
+     * If the same source is already loading the listener will be just added to the waiting
+     * ones and the request will be promoted if the new priority is higher.
+     *
+     * @param context  the context
+     * @param source   the source path
+     * @param priority the request priority
+     * @param listener the listener, can be null
+     */
+    static void loadDuration(Context context, String source, int priority,
+                             OnLoadListener listener) {
+        // Create
+        if (ScMetadataLoader.mPending == null) {
+            ScMetadataLoader.mPending = new HashMap<>();
+            ScMetadataLoader.mHandler = new Handler(Looper.getMainLooper());
+        }
+
+        // Check if already loading
+        LoadTask task = ScMetadataLoader.mPending.get(source);
+        if (task == null) {
+            task = new LoadTask(context.getApplicationContext(), source, priority);
+            ScMetadataLoader.mPending.put(source, task);
+            ScMetadataLoader.getExecutor().execute(task);
+
+        } else if (priority < task.mPriority) {
+            // Promote only if still queued as the queue must be sorted again
+            ThreadPoolExecutor executor = ScMetadataLoader.getExecutor();
+            if (executor.getQueue().remove(task)) {
+                task.mPriority = priority;
+                task.mSequence = ScMetadataLoader.mSequence++;
+                executor.execute(task);
+            }
+        }
+
+        // Listener
+        if (listener != null && !task.mListeners.contains(listener))
+            task.mListeners.add(listener);
+    }
+
+    /**
+     * Load the source duration on the background and notify the listener on the main thread.
+     *
+     * @param context  the context
+     * @param source   the source path
+     * @param listener the listener
+     */
+    static void loadDuration(Context context, String source, OnLoadListener listener) {
+        ScMetadataLoader.loadDuration(
+                context, source, ScMetadataLoader.PRIORITY_VISIBLE, listener);
+    }
+
+    /**
+     * Prefetch the metadata of many sources.
+     * The sources already in the memory cache or already loading are skipped.
+     *
+     * @param context  the context
+     * @param sources  the media paths
+     * @param priority the requests priority
+     */
+    static void prefetch(Context context, Iterable<String> sources, int priority) {
+        for (String source : sources)
+            if (source != null && ScMetadataLoader.getMetadata().get(source) == null)
+                ScMetadataLoader.loadDuration(context, source, priority, null);
+    }
+
+
+    // *******************************************************************************************
+    // Public listener and interface
+
+    /**
+     * Load listener
+     */
+    interface OnLoadListener {
+
+        /**
+         * Called on the main thread when the duration is loaded
+         *
+         * @param source   the source path
+         * @param duration the duration in milliseconds
+         */
+        void onLoaded(String source, int duration);
+
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.sccomponents.buttons;
+
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of colors to apply at once to many buttons, for example to switch between the day
+ * and the night theme.
+ * Only the colors settled on the palette will be changed, the others will be left untouched.
+ * Every affected button update all its fields and then is redrawn only once.
+ * NOTE that the palette must be applied from the main thread.
+ */
+
+public final class ScPalette {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int ON_COLOR = 1;
+    private static final int OFF_COLOR = 1 << 1;
+    private static final int LED_ON_COLOR = 1 << 2;
+    private static final int LED_OFF_COLOR = 1 << 3;
+    private static final int TEXT_ON_COLOR = 1 << 4;
+    private static final int TEXT_OFF_COLOR = 1 << 5;
+    private static final int RIPPLE_COLOR = 1 << 6;
+    private static final int BACKGROUND_COLOR = 1 << 7;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private int mSettled = 0;
+
+    private int mOnColor = 0;
+    private int mOffColor = 0;
+    private int mLedOnColor = 0;
+    private int mLedOffColor = 0;
+    private int mTextOnColor = 0;
+    private int mTextOffColor = 0;
+    private int mRippleColor = 0;
+    private int mBackgroundColor = 0;
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Check if a color was settled
+     *
+     * @param flag the color flag
+     * @return true if settled
+     */
+    private boolean isSettled(int flag) {
+        return (this.mSettled & flag) != 0;
+    }
+
+    /**
+     * Apply the palette on a list of buttons
+     *
+     * @param buttons the buttons
+     * @return the number of affected buttons
+     */
+    private int apply(List<ScToggleButton> buttons) {
+        // Trace
+        boolean traced = ScTrace.begin("ScPalette.apply", null);
+
+        // Apply
+        for (ScToggleButton button : buttons)
+            button.applyPalette(this);
+
+        ScTrace.end(traced);
+        return buttons.size();
+    }
+
+    /**
+     * Apply the settled colors on the button fields without invalidate it
+     *
+     * @param button the button
+     */
+    void applyColors(ScToggleButton button) {
+        if (this.isSettled(ScPalette.ON_COLOR)) button.mOnColor = this.mOnColor;
+        if (this.isSettled(ScPalette.OFF_COLOR)) button.mOffColor = this.mOffColor;
+        if (this.isSettled(ScPalette.LED_ON_COLOR)) button.mLedOnColor = this.mLedOnColor;
+        if (this.isSettled(ScPalette.LED_OFF_COLOR)) button.mLedOffColor = this.mLedOffColor;
+        if (this.isSettled(ScPalette.TEXT_ON_COLOR)) button.mTextOnColor = this.mTextOnColor;
+        if (this.isSettled(ScPalette.TEXT_OFF_COLOR)) button.mTextOffColor = this.mTextOffColor;
+        if (this.isSettled(ScPalette.RIPPLE_COLOR)) button.mRippleColor = this.mRippleColor;
+    }
+
+    /**
+     * Apply the settled colors on the switch fields without invalidate it
+     *
+     * @param button the switch
+     */
+    void applyColors(ScSwitch button) {
+        this.applyColors((ScToggleButton) button);
+        if (this.isSettled(ScPalette.BACKGROUND_COLOR))
+            button.mBackgroundColor = this.mBackgroundColor;
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Apply the palette on all the attached buttons
+     *
+     * @return the number of affected buttons
+     */
+    @SuppressWarnings("unused")
+    public int applyToAll() {
+        return this.apply(ScToggleButton.getButtons());
+    }
+
+    /**
+     * Apply the palette on the attached buttons of a group
+     *
+     * @param group the group name
+     * @return the number of affected buttons
+     */
+    @SuppressWarnings("unused")
+    public int applyToGroup(String group) {
+        return this.apply(ScToggleButton.getButtonsGroup(group));
+    }
+
+    /**
+     * Apply the palette on the attached buttons of the same window of the passed view
+     *
+     * @param view any view attached to the window
+     * @return the number of affected buttons
+     */
+    @SuppressWarnings("unused")
+    public int applyToWindow(View view) {
+        // Filter by the root view
+        View root = view.getRootView();
+        List<ScToggleButton> list = new ArrayList<>();
+        for (ScToggleButton button : ScToggleButton.getButtons())
+            if (button.getRootView() == root)
+                list.add(button);
+
+        // Apply
+        return this.apply(list);
+    }
+
+    /**
+     * Remove all the settled colors
+     */
+    @SuppressWarnings("unused")
+    public void clear() {
+        this.mSettled = 0;
+    }
+
+
+    /**
+     * Set the on color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setOnColor(int value) {
+        this.mOnColor = value;
+        this.mSettled |= ScPalette.ON_COLOR;
+    }
+
+    /**
+     * Set the off color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setOffColor(int value) {
+        this.mOffColor = value;
+        this.mSettled |= ScPalette.OFF_COLOR;
+    }
+
+    /**
+     * Set the led on color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setLedOnColor(int value) {
+        this.mLedOnColor = value;
+        this.mSettled |= ScPalette.LED_ON_COLOR;
+    }
+
+    /**
+     * Set the led off color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setLedOffColor(int value) {
+        this.mLedOffColor = value;
+        this.mSettled |= ScPalette.LED_OFF_COLOR;
+    }
+
+    /**
+     * Set the text on color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setTextOnColor(int value) {
+        this.mTextOnColor = value;
+        this.mSettled |= ScPalette.TEXT_ON_COLOR;
+    }
+
+    /**
+     * Set the text off color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setTextOffColor(int value) {
+        this.mTextOffColor = value;
+        this.mSettled |= ScPalette.TEXT_OFF_COLOR;
+    }
+
+    /**
+     * Set the ripple color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setRippleColor(int value) {
+        this.mRippleColor = value;
+        this.mSettled |= ScPalette.RIPPLE_COLOR;
+    }
+
+    /**
+     * Set the switches background color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setBackgroundColor(int value) {
+        this.mBackgroundColor = value;
+        this.mSettled |= ScPalette.BACKGROUND_COLOR;
+    }
+
+}
@@ -2,21 +2,20 @@ package com.sccomponents.buttons;
 
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
-import android.media.MediaMetadataRetriever;
 import android.media.MediaPlayer;
 import android.media.audiofx.Visualizer;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.graphics.drawable.DrawableCompat;
 import android.util.AttributeSet;
@@ -27,11 +26,10 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -42,13 +40,35 @@ public class ScPlayerButton extends View {
     // ***************************************************************************************
     // Constants
 
-    private static final String BACKGROUND_COLOR = "#FCC81A";
-    private static final String FOREGROUND_COLOR = "#FFFFFF";
+    private static final int BACKGROUND_COLOR = 0xFFFCC81A;
+    private static final int FOREGROUND_COLOR = 0xFFFFFFFF;
     private static final String PERMISSION = "RECORD_AUDIO";
 
     private static final int UPDATE_FREQUENCY = 10; // Hertz
     private static final float FONT_SIZE = 11.0f;
     private static final float VOLUME = 0.7f;
+    private static final String TIME_PLACEHOLDER = "--:--";
+    private static final int PREPARING_ROUND = 1000; // Milliseconds
+    private static final int PREPARING_SWEEP = 90; // Degrees
+    private static final int SOUND_THRESHOLD = 5000; // Milliseconds
+    private static final int CAPTURE_SIZE = 1024;
+
+
+    // ***************************************************************************************
+    // Enumerators
+
+    /**
+     * The playing mode.
+     * AUTO: the short media, until 5 seconds, are played as sound, the others as media.
+     * MEDIA: always played by a media player.
+     * SOUND: always decoded once in the shared sound pool and played with low latency.
+     */
+    @SuppressWarnings("unused")
+    public enum PlayMode {
+        AUTO,
+        MEDIA,
+        SOUND
+    }
 
 
     // ***************************************************************************************
@@ -58,6 +78,11 @@ public class ScPlayerButton extends View {
     private int mColor = Color.WHITE;
     private float mFontSize = ScPlayerButton.FONT_SIZE;
     private float mVolume = ScPlayerButton.VOLUME;
+    private boolean mPressFeedback = true;
+    private int mRippleColor = Integer.MAX_VALUE;
+    private PlayMode mPlayMode = PlayMode.AUTO;
+    private int mPreloadCount = 0;
+    private List<String> mPreloadHint = null;
 
 
     // ***************************************************************************************
@@ -67,22 +92,36 @@ public class ScPlayerButton extends View {
     private static Drawable mStopIcon = null;
 
     private MediaPlayer mPlayer = null;
-    private Visualizer mVisualizer = null;
+    private MediaPlayer mPreparing = null;
+    private long mPrepareStart = 0;
+    private String mPrepareTrace = null;
+    private ScWaveCapture mWaveCapture = null;
+    private SoundListener mSoundRequest = null;
+    private int mSoundStream = 0;
+    private long mSoundStart = 0;
 
     private int mPosition = 0;
     private int mMediaDuration = 0;
-    private byte[] mWaveToken = null;
+    private boolean mMediaDurationLoaded = false;
+    private String mMediaDurationKey = null;
+    private DurationListener mDurationListener = null;
+    private EvictListener mEvictListener = null;
+    private ScWaveBuffer mWaveBuffer = null;
+    private volatile int mWaveColumns = 0;
     private Rect mDrawingArea = null;
 
-    private ScheduledExecutorService mExecutor = null;
+    private TimeTicker mTicker = null;
     private GestureDetector mDetector = null;
     private OnEventListener mEventListener = null;
+    private OnPrepareListener mPrepareListener = null;
+    private ScRipple mRipple = null;
 
     // Temp variable
     private Paint mTimePaint = null;
     private Paint mWavePaint = null;
     private Rect mGenericRect = null;
-    private Path mGenericPath = null;
+    private RectF mGenericRectF = null;
+    private float[] mWaveLines = null;
 
 
     // ***************************************************************************************
@@ -101,6 +140,126 @@ public class ScPlayerButton extends View {
     }
 
 
+    /**
+     * Refresh the component at the update frequency using the shared frame clock
+     */
+    private class TimeTicker implements ScFrameClock.OnFrameListener {
+
+        private long mLastTick = -1;
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            // Check for the elapsed time, the preparing indicator is refreshed on every frame
+            long period = 1000000000L / ScPlayerButton.UPDATE_FREQUENCY;
+            if (mPreparing != null || mSoundRequest != null ||
+                    this.mLastTick < 0 || frameTimeNanos - this.mLastTick >= period) {
+                this.mLastTick = frameTimeNanos;
+                invalidate();
+            }
+
+            // Check if the sound is completed
+            if (mSoundStream != 0 &&
+                    SystemClock.uptimeMillis() - mSoundStart >= getSoundDuration())
+                onSoundCompleted();
+
+            // Continue until preparing or playing
+            return mPreparing != null || mPlayer != null ||
+                    mSoundRequest != null || mSoundStream != 0;
+        }
+
+    }
+
+
+    /**
+     * Receive the media duration loaded on the background
+     */
+    private class DurationListener implements ScMetadataLoader.OnLoadListener {
+
+        @Override
+        public void onLoaded(String key, int duration) {
+            // Ignore the results of a previous source
+            if (mMediaDurationLoaded || !key.equals(mMediaDurationKey))
+                return;
+
+            mMediaDuration = duration;
+            mMediaDurationLoaded = true;
+            invalidate();
+        }
+
+    }
+
+
+    /**
+     * Start to play the sound when decoded by the shared sound pool
+     */
+    private class SoundListener implements ScSoundPool.OnPlayListener {
+
+        private String mMediaPath;
+
+        SoundListener(String mediaPath) {
+            this.mMediaPath = mediaPath;
+        }
+
+        @Override
+        public void onPlay(int streamId) {
+            // Ignore the cancelled requests
+            if (this != mSoundRequest)
+                return;
+            mSoundRequest = null;
+
+            // If the sound pool cannot play the source use the media player
+            if (streamId == 0) {
+                releaseUpdate();
+                startPrepareMedia(this.mMediaPath);
+                return;
+            }
+
+            // Holders
+            mSoundStream = streamId;
+            mSoundStart = SystemClock.uptimeMillis();
+            invalidate();
+
+            // Event
+            if (mEventListener != null)
+                mEventListener.onStartPlay(null);
+        }
+
+    }
+
+
+    /**
+     * Release the player stopped by the pool
+     */
+    private class EvictListener implements ScPlayerPool.OnEvictListener {
+
+        @Override
+        public void onEvicted(MediaPlayer player) {
+            // The player is already owned by the pool so must be just forgot
+            if (player == mPreparing) {
+                releaseUpdate();
+                mPreparing = null;
+
+                ScTrace.endAsync(mPrepareTrace, ScPlayerButton.this);
+                mPrepareTrace = null;
+
+            } else if (player == mPlayer) {
+                releaseUpdate();
+                releaseVisualizer(mWaveCapture);
+                mWaveCapture = null;
+                mPlayer = null;
+
+                if (mEventListener != null)
+                    mEventListener.onStopPlay();
+            }
+
+            // Release the button state
+            setSelected(false);
+            invalidate();
+        }
+
+    }
+
+
     // ***************************************************************************************
     // Constructors
 
@@ -136,22 +295,29 @@ public class ScPlayerButton extends View {
         //--------------------------------------------------
         // ATTRIBUTES
 
-        // Get the attributes list
-        final TypedArray attrArray = context
-                .obtainStyledAttributes(attrs, R.styleable.ScButtons, defStyle, 0);
+        // Get the attributes snapshot
+        final ScAttributes attributes = ScAttributes.obtain(context, attrs, defStyle);
 
         // Read all attributes from xml and assign the value to linked variables
-        this.mSource = attrArray.getString(
+        this.mSource = attributes.getString(
                 R.styleable.ScButtons_source);
-        this.mColor = attrArray.getColor(
-                R.styleable.ScButtons_color, Color.parseColor(ScPlayerButton.FOREGROUND_COLOR));
-        this.mFontSize = attrArray.getDimension(
+        this.mColor = attributes.getColor(
+                R.styleable.ScButtons_color, ScPlayerButton.FOREGROUND_COLOR);
+        this.mFontSize = attributes.getDimension(
                 R.styleable.ScButtons_fontSize, this.dipToPixel(ScPlayerButton.FONT_SIZE));
-        this.mVolume = attrArray.getFloat(
+        this.mVolume = attributes.getFloat(
                 R.styleable.ScButtons_volume, ScPlayerButton.VOLUME);
+        this.mPressFeedback = attributes.getBoolean(
+                R.styleable.ScButtons_pressFeedback, true);
+        this.mRippleColor = attributes.getColor(
+                R.styleable.ScButtons_rippleColor, Integer.MAX_VALUE);
+
+        int playMode = attributes.getInt(
+                R.styleable.ScButtons_playMode, PlayMode.AUTO.ordinal());
+        this.mPlayMode = PlayMode.values()[playMode];
 
-        // Recycle
-        attrArray.recycle();
+        this.mPreloadCount = attributes.getInt(
+                R.styleable.ScButtons_preloadCount, 0);
 
         //--------------------------------------------------
         // SETTINGS
@@ -159,14 +325,28 @@ public class ScPlayerButton extends View {
         // Check the background
         ColorDrawable background = (ColorDrawable) this.getBackground();
         if (background == null)
-            this.setBackgroundColor(Color.parseColor(ScPlayerButton.BACKGROUND_COLOR));
+            this.setBackgroundColor(ScPlayerButton.BACKGROUND_COLOR);
 
         //--------------------------------------------------
         // INIT
 
-        this.mDetector = new GestureDetector(this.getContext(), new SingleTapConfirm());
-        this.mExecutor = Executors.newSingleThreadScheduledExecutor();
-        this.mMediaDuration = this.getMediaDuration(this.mSource);
+        // The gesture detector, the painters and the media duration are created only
+        // when really needed. The time refresh use the shared frame clock only while playing
+        // so an idle button not hold any thread.
+        this.mRipple = new ScRipple(this);
+        this.updateRipple();
+
+        this.setClickable(true);
+        this.setSelected(false);
+    }
+
+    /**
+     * Create the painters and the temp variables on the first draw
+     */
+    private void initPainters() {
+        // Check if already done
+        if (this.mTimePaint != null)
+            return;
 
         this.mTimePaint = new Paint();
         this.mTimePaint.setAntiAlias(true);
@@ -178,11 +358,99 @@ public class ScPlayerButton extends View {
         this.mWavePaint.setStyle(Paint.Style.STROKE);
 
         this.mGenericRect = new Rect();
+        this.mGenericRectF = new RectF();
         this.mDrawingArea = new Rect();
-        this.mGenericPath = new Path();
+        this.mWaveLines = new float[0];
+    }
 
-        this.setClickable(true);
-        this.setSelected(false);
+    /**
+     * Get the gesture detector creating it on the first touch
+     *
+     * @return the detector
+     */
+    private GestureDetector getDetector() {
+        if (this.mDetector == null)
+            this.mDetector = new GestureDetector(this.getContext(), new SingleTapConfirm());
+        return this.mDetector;
+    }
+
+    /**
+     * Get the media duration.
+     * If the duration is not in the memory cache will be requested on the background the
+     * first time that is needed and until it arrives this method will return -1.
+     * This method is called while drawing so it must never do any I/O.
+     *
+     * @return the duration in milliseconds or -1 if not loaded yet
+     */
+    private int getLoadedDuration() {
+        // Check if already loaded or still loading
+        if (this.mMediaDurationLoaded)
+            return this.mMediaDuration;
+        if (this.mMediaDurationKey != null)
+            return -1;
+
+        // Check for empty values
+        if (this.mSource == null) {
+            this.mMediaDuration = 0;
+            this.mMediaDurationLoaded = true;
+            return 0;
+        }
+
+        // Find in the memory cache
+        this.mMediaDurationKey = this.mSource;
+        Integer cached = ScMetadataLoader.getCachedDuration(this.mSource);
+        if (cached != null) {
+            this.mMediaDuration = cached;
+            this.mMediaDurationLoaded = true;
+            return cached;
+        }
+
+        // Load on background, the loader will check the persistent index first
+        if (this.mDurationListener == null)
+            this.mDurationListener = new DurationListener();
+        ScMetadataLoader.loadDuration(this.getContext(), this.mSource, this.mDurationListener);
+        return -1;
+    }
+
+    /**
+     * Get the duration used to play the sound.
+     * If the media duration is unknown will be used the sound threshold.
+     *
+     * @return the duration in milliseconds
+     */
+    private int getSoundDuration() {
+        int duration = this.getLoadedDuration();
+        return duration > 0 ? duration : ScPlayerButton.SOUND_THRESHOLD;
+    }
+
+    /**
+     * Check if the media must be played by the shared sound pool.
+     * In auto mode the media is played as sound only if its duration is already known and
+     * under the threshold.
+     *
+     * @return true if play as sound
+     */
+    private boolean useSoundPool() {
+        switch (this.mPlayMode) {
+            case SOUND:
+                return true;
+
+            case AUTO:
+                int duration = this.getLoadedDuration();
+                return duration > 0 && duration <= ScPlayerButton.SOUND_THRESHOLD;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reset the media duration so will be retrieved again when needed
+     */
+    private void resetDuration() {
+        this.mMediaDuration = 0;
+        this.mMediaDurationLoaded = false;
+        this.mMediaDurationKey = null;
     }
 
     /**
@@ -199,35 +467,13 @@ public class ScPlayerButton extends View {
     }
 
     /**
-     * Retrieve the media duration in milliseconds
-     *
-     * @param source the media path
-     * @return the duration in milliseconds
+     * Apply the current settings to the press feedback ripple.
+     * If the ripple color is not defined will be used the foreground color.
      */
-    private int getMediaDuration(String source) {
-        // Try to create the player
-        MediaMetadataRetriever retriever = null;
-
-        // Check for null values
-        if (source != null)
-            try {
-                retriever = new MediaMetadataRetriever();
-                retriever.setDataSource(this.getContext(), Uri.parse(source));
-                String durationStr = retriever
-                        .extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
-                return Integer.parseInt(durationStr);
-
-            } catch (Exception ex) {
-                // Print the error on the stack and return
-                ex.printStackTrace();
-
-            } finally {
-                // Release the player
-                if (retriever != null)
-                    retriever.release();
-            }
-
-        return 0;
+    private void updateRipple() {
+        this.mRipple.setEnabled(this.mPressFeedback);
+        this.mRipple.setColor(this.mRippleColor == Integer.MAX_VALUE ?
+                ScRipple.getDefaultColor(this.mColor) : this.mRippleColor);
     }
 
     /**
@@ -303,20 +549,65 @@ public class ScPlayerButton extends View {
     // Manager media player
 
     /**
-     * Init a new media player.
+     * Get a media player from the shared pool and start to prepare it asynchronously.
+     * When ready the player will be passed to the {@link #onPlayerPrepared(MediaPlayer)}
+     * method.
      *
      * @param mediaPath the media path
      * @param volume    the player volume
-     * @return the new media player
+     * @return the media player or null if the pool rejected the request
      */
     private MediaPlayer initMediaPlayer(String mediaPath, float volume) throws IOException {
-        // Create a new media player object
-        MediaPlayer player = MediaPlayer.create(this.getContext(), Uri.parse(mediaPath));
+        // Get a media player object from the pool
+        if (this.mEvictListener == null)
+            this.mEvictListener = new EvictListener();
+        MediaPlayer player = ScPlayerPool.obtain(this.mEvictListener);
+        if (player == null)
+            return null;
+
+        try {
+            // Source
+            player.setDataSource(this.getContext(), Uri.parse(mediaPath));
+
+            // Settings
+            this.attachMediaPlayer(player, volume);
+
+            // Prepare and return
+            player.prepareAsync();
+            return player;
+
+        } catch (Exception ex) {
+            // The player is not owned by anyone so must be given back to the pool
+            ScPlayerPool.recycle(player);
+            throw ex;
+        }
+    }
 
-        // Settings and return
-        player.seekTo(this.mPosition);
+    /**
+     * Apply the settings and the button listeners to the player
+     *
+     * @param player the player
+     * @param volume the player volume
+     */
+    private void attachMediaPlayer(MediaPlayer player, float volume) {
         player.setLooping(false);
         player.setVolume(volume, volume);
+        player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+            @Override
+            public void onPrepared(MediaPlayer mediaPlayer) {
+                onPlayerPrepared(mediaPlayer);
+            }
+        });
+        player.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+            @Override
+            public boolean onError(MediaPlayer mediaPlayer, int what, int extra) {
+                // Stop all and release the button state
+                stopPlayMedia();
+                setSelected(false);
+                invalidate();
+                return true;
+            }
+        });
         player.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
             @Override
             public void onCompletion(MediaPlayer mediaPlayer) {
@@ -328,30 +619,98 @@ public class ScPlayerButton extends View {
                 invalidate();
             }
         });
-        return player;
     }
 
     /**
-     * Release the media player.
+     * Take the preloaded player of the media if exists.
+     * The player is handed over to the button and, if already prepared, start to play
+     * immediately.
+     *
+     * @param mediaPath the media path
+     * @return true if the player was preloaded
+     */
+    private boolean takePreloadedPlayer(String mediaPath) {
+        // Find
+        ScPreloader.Entry entry = ScPreloader.take(mediaPath);
+        if (entry == null)
+            return false;
+
+        // Become the owner
+        if (this.mEvictListener == null)
+            this.mEvictListener = new EvictListener();
+        ScPlayerPool.transfer(entry.mPlayer, this.mEvictListener);
+        this.attachMediaPlayer(entry.mPlayer, this.mVolume);
+        this.mPreparing = entry.mPlayer;
+
+        // Play now or wait for the preparation
+        if (entry.mPrepared)
+            this.onPlayerPrepared(entry.mPlayer);
+        else {
+            this.initUpdate();
+            this.invalidate();
+        }
+        return true;
+    }
+
+    /**
+     * Preload the sources that will be probably played after the current one.
+     * The sources are taken from the hint if defined, else from the next player buttons
+     * inside the same parent. The sources that will be played as sound are skipped.
+     */
+    private void preloadNext() {
+        // Check if enabled
+        if (this.mPreloadCount <= 0)
+            return;
+
+        // Find the next sources
+        List<String> sources = new ArrayList<>();
+        if (this.mPreloadHint != null) {
+            for (String source : this.mPreloadHint)
+                if (sources.size() < this.mPreloadCount && !this.equals(source, this.mSource))
+                    sources.add(source);
+
+        } else if (this.getParent() instanceof ViewGroup) {
+            ViewGroup parent = (ViewGroup) this.getParent();
+            for (int index = parent.indexOfChild(this) + 1;
+                 index < parent.getChildCount() && sources.size() < this.mPreloadCount;
+                 index++) {
+                // Check the sibling
+                View child = parent.getChildAt(index);
+                if (!(child instanceof ScPlayerButton))
+                    continue;
+
+                ScPlayerButton button = (ScPlayerButton) child;
+                if (button.mSource != null && !button.useSoundPool())
+                    sources.add(button.mSource);
+            }
+        }
+
+        // Preload
+        if (!sources.isEmpty())
+            ScPreloader.preload(this.getContext(), sources);
+    }
+
+    /**
+     * Give back the media player to the shared pool.
      *
      * @param player the player
      */
     private void releaseMediaPlayer(MediaPlayer player) {
-        if (player != null) {
-            player.stop();
-            player.release();
-        }
+        if (player != null)
+            ScPlayerPool.recycle(player);
     }
 
     /**
-     * Init a new visualizer.
-     * NOTE that if the app not has the permission requested the visualizer
+     * Start a new wave form capture.
+     * The visualizer deliver the data on the capture thread where the data is decimated and
+     * published on the wave buffer, so the UI thread only draw the last complete frame.
+     * NOTE that if the app not has the permission requested the capture
      * will be always NULL.
      *
      * @param player the owner
-     * @return the new visualizer
+     * @return the new capture
      */
-    private Visualizer initVisualizer(MediaPlayer player) {
+    private ScWaveCapture initVisualizer(MediaPlayer player) {
         // Check for permission
         if (!this.checkRequestedPermission())
             return null;
@@ -361,42 +720,93 @@ public class ScPlayerButton extends View {
         if (frequency > Visualizer.getMaxCaptureRate())
             frequency = Visualizer.getMaxCaptureRate();
 
-        // Settings and return
-        Visualizer visualizer = new Visualizer(player.getAudioSessionId());
-        visualizer.setCaptureSize(1024);
-        visualizer.setDataCaptureListener(new Visualizer.OnDataCaptureListener() {
-            @Override
-            public void onWaveFormDataCapture(Visualizer visualizer,
-                                              byte[] bytes,
-                                              int samplingRate) {
-                mWaveToken = bytes;
-                postInvalidate();
-            }
+        // Every capture write on its own buffer because the previous capture can still
+        // write until its release is executed on the capture thread
+        final ScWaveBuffer buffer = new ScWaveBuffer(ScPlayerButton.CAPTURE_SIZE);
+        this.mWaveBuffer = buffer;
+
+        // Start
+        return ScWaveCapture.start(player.getAudioSessionId(), ScPlayerButton.CAPTURE_SIZE,
+                frequency, new ScWaveCapture.OnCaptureListener() {
+                    @Override
+                    public void onCapture(byte[] data) {
+                        // Decimate here so the UI thread draw only one segment for pixel column
+                        int columns = mWaveColumns;
+                        if (columns <= 0)
+                            return;
+
+                        // Write on the back buffer and publish it without any lock
+                        float[] wave = buffer.getWriteBuffer(columns * 2);
+                        ScPlayerButton.decimateWave(data, wave, columns);
+                        buffer.publish(columns * 2);
+                        postInvalidate();
+                    }
+
+                    @Override
+                    public void onFailed() {
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                // Check if still the current capture
+                                if (buffer != mWaveBuffer)
+                                    return;
+
+                                // Without the wave form the time must be refreshed by the ticker
+                                mWaveCapture = null;
+                                if (mPlayer != null)
+                                    initUpdate();
+                            }
+                        });
+                    }
+                });
+    }
 
-            @Override
-            public void onFftDataCapture(
-                    Visualizer visualizer,
-                    byte[] bytes,
-                    int samplingRate) {
-                // NOP
+    /**
+     * Reduce the wave form captured data to the minimum and maximum value of every column.
+     * The values are normalized between 0 and 1 and stored in pairs inside the target.
+     * Every column range include the last value of the previous column so the drawn segments
+     * will be connected.
+     *
+     * @param data    the captured data
+     * @param target  where to write the pairs, must hold at least columns * 2 values
+     * @param columns the columns number
+     */
+    private static void decimateWave(byte[] data, float[] target, int columns) {
+        int last = -1;
+        for (int column = 0; column < columns; column++) {
+            // The samples range of this column
+            int start = (int) ((long) column * data.length / columns);
+            int end = (int) ((long) (column + 1) * data.length / columns);
+
+            // Find the limits
+            int min = last >= 0 ? last : 255;
+            int max = last >= 0 ? last : 0;
+            for (int index = start; index < end; index++) {
+                int value = data[index] & 0xff;
+                if (value < min) min = value;
+                if (value > max) max = value;
+                last = value;
             }
 
-        }, frequency, true, false);
+            // Columns without samples repeat the previous value
+            if (min > max)
+                min = max = last >= 0 ? last : 128;
 
-        visualizer.setEnabled(true);
-        return visualizer;
+            target[column * 2] = min / 255.0f;
+            target[column * 2 + 1] = max / 255.0f;
+        }
     }
 
     /**
-     * Release the visualizer.
+     * Release the wave form capture.
+     * The buffer is forgot so the last wave form will not be drawn again.
      *
-     * @param visualizer the visualizer
+     * @param capture the capture
      */
-    private void releaseVisualizer(Visualizer visualizer) {
-        if (visualizer != null) {
-            visualizer.setEnabled(false);
-            visualizer.release();
-        }
+    private void releaseVisualizer(ScWaveCapture capture) {
+        if (capture != null)
+            capture.release();
+        this.mWaveBuffer = null;
     }
 
     /**
@@ -404,81 +814,226 @@ public class ScPlayerButton extends View {
      * This is required if the app not have the requested permission to
      * showing the wave form since we need to update the time label while
      * the player is running.
+     * The ticker is driven by the shared frame clock so all the playing buttons will be
+     * refreshed by the same frame callback.
      */
-    private ScheduledExecutorService initUpdate() {
-        // Start new one
-        int milliseconds = (int) ((1 / (float) ScPlayerButton.UPDATE_FREQUENCY) * 1000);
-        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-        executor.scheduleAtFixedRate(new Runnable() {
-            @Override
-            public void run() {
-                postInvalidate();
-            }
-        }, 0L, milliseconds, TimeUnit.MILLISECONDS);
+    private void initUpdate() {
+        if (this.mTicker == null)
+            this.mTicker = new TimeTicker();
 
-        return executor;
+        this.mTicker.mLastTick = -1;
+        ScFrameClock.getInstance().register(this.mTicker);
     }
 
     /**
-     * Stop the update service
+     * Stop the update ticker
      */
-    private void releaseUpdate(ScheduledExecutorService executor) {
-        if (executor != null)
-            executor.shutdownNow();
+    private void releaseUpdate() {
+        if (this.mTicker != null)
+            ScFrameClock.getInstance().unregister(this.mTicker);
     }
 
     /**
-     * Start to play the media
+     * Start to play the media.
+     * By the play mode the media will be played as sound by the shared sound pool or
+     * by a media player.
      *
      * @param mediaPath the path to media
      */
     private void startPlayMedia(String mediaPath) {
+        // Stop if active or preparing
+        this.stopPlayMedia();
+
+        // Check for empty values
+        if (mediaPath == null)
+            return;
+
+        // By the mode
+        if (this.useSoundPool())
+            this.startPlaySound(mediaPath);
+        else
+            this.startPrepareMedia(mediaPath);
+    }
+
+    /**
+     * Start to play the media as sound.
+     * The first time the sound is decoded and until ready will be shown the preparing
+     * indicator, next times will start immediately. If the sound pool cannot play the
+     * source the media player will be used.
+     * NOTE that the sound is always played from the start.
+     *
+     * @param mediaPath the path to media
+     */
+    private void startPlaySound(String mediaPath) {
+        // The ticker refresh the time label and check the sound completion
+        SoundListener request = new SoundListener(mediaPath);
+        this.mSoundRequest = request;
+        this.initUpdate();
+        this.invalidate();
+
         try {
-            // Stop if active
-            this.stopPlayMedia();
+            // Play
+            ScSoundPool.play(this.getContext(), mediaPath,
+                    this.getSoundDuration(), this.mVolume, request);
 
-            // Create the player and start to play the media
-            if (mediaPath != null) {
-                // Player
-                this.mPlayer = this.initMediaPlayer(mediaPath, this.mVolume);
-                this.mVisualizer = this.initVisualizer(this.mPlayer);
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
 
-                // If no granted for showing the wave form we must force to
-                // update the layout periodically to refresh the time
-                if (this.mVisualizer == null)
-                    this.mExecutor = this.initUpdate();
+            // Fall back to the media player if the request was not already handled
+            if (this.mSoundRequest == request)
+                request.onPlay(0);
+        }
+    }
 
-                // Play
-                this.mPlayer.start();
+    /**
+     * Called when the sound duration is elapsed
+     */
+    private void onSoundCompleted() {
+        // Stop all
+        this.stopPlayMedia();
+
+        // Release the button state
+        this.setSelected(false);
+        this.invalidate();
+    }
 
-                // Event
-                if (this.mEventListener != null)
-                    this.mEventListener.onStartPlay(this.mPlayer);
+    /**
+     * Start to prepare the media.
+     * The player is prepared asynchronously and until ready will be shown the preparing
+     * indicator. The playing will start when the player is prepared.
+     *
+     * @param mediaPath the path to media
+     */
+    private void startPrepareMedia(String mediaPath) {
+        // Trace the playback startup
+        this.mPrepareTrace = ScTrace.beginAsync("ScPlayerButton.startPlayMedia", this);
+        this.mPrepareStart = SystemClock.elapsedRealtime();
+
+        try {
+            // Use the preloaded player if exists
+            if (this.takePreloadedPlayer(mediaPath))
+                return;
+
+            // Player
+            this.mPreparing = this.initMediaPlayer(mediaPath, this.mVolume);
+            if (this.mPreparing == null) {
+                // Rejected by the pool
+                this.stopPlayMedia();
+                this.setSelected(false);
+                this.invalidate();
+                return;
             }
 
-        } catch (
-                Exception ex)
+            // Animate the preparing indicator
+            this.initUpdate();
+            this.invalidate();
+
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
+
+            // Release the button state
+            this.stopPlayMedia();
+            this.setSelected(false);
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Called when the player is prepared start to play the media.
+     * If in the meanwhile the preparation was cancelled the player is released.
+     *
+     * @param player the prepared player
+     */
+    private void onPlayerPrepared(MediaPlayer player) {
+        // Check if still the current request
+        if (player != this.mPreparing) {
+            this.releaseMediaPlayer(player);
+            return;
+        }
+
+        // Holders
+        long elapsed = SystemClock.elapsedRealtime() - this.mPrepareStart;
+        this.mPreparing = null;
+        this.mPlayer = player;
+
+        try {
+            // Visualizer
+            this.mWaveCapture = this.initVisualizer(player);
+
+            // If no granted for showing the wave form we must force to
+            // update the layout periodically to refresh the time
+            if (this.mWaveCapture != null)
+                this.releaseUpdate();
 
-        {
+            // Play
+            player.seekTo(this.mPosition);
+            player.start();
+            this.invalidate();
+
+            // Events
+            if (this.mPrepareListener != null)
+                this.mPrepareListener.onPrepared(player, elapsed);
+            if (this.mEventListener != null)
+                this.mEventListener.onStartPlay(player);
+
+            // Prepare the next sources while playing
+            this.preloadNext();
+
+        } catch (Exception ex) {
             // Print the error on the stack
             ex.printStackTrace();
         }
+
+        ScTrace.endAsync(this.mPrepareTrace, this);
+        this.mPrepareTrace = null;
     }
 
     /**
-     * Stop to play the media
+     * Stop to play the media or cancel the preparation
      */
     private void stopPlayMedia() {
+        // Cancel the sound decoding
+        if (this.mSoundRequest != null) {
+            this.releaseUpdate();
+            ScSoundPool.cancel(this.mSoundRequest);
+            this.mSoundRequest = null;
+        }
+
+        // Stop the sound
+        if (this.mSoundStream != 0) {
+            this.releaseUpdate();
+            ScSoundPool.stop(this.mSoundStream);
+            this.mSoundStream = 0;
+
+            // Event
+            if (this.mEventListener != null)
+                this.mEventListener.onStopPlay();
+        }
+
+        // Cancel the preparation
+        if (this.mPreparing != null) {
+            this.releaseUpdate();
+            this.releaseMediaPlayer(this.mPreparing);
+            this.mPreparing = null;
+        }
+
+        // Close the preparation trace if still open
+        if (this.mPrepareTrace != null) {
+            ScTrace.endAsync(this.mPrepareTrace, this);
+            this.mPrepareTrace = null;
+        }
+
         // If exists stop the play
-        if (this.mPlayer != null && this.mPlayer.isPlaying()) {
+        if (this.mPlayer != null) {
             // Stop and release
-            this.releaseUpdate(this.mExecutor);
-            this.releaseVisualizer(this.mVisualizer);
+            this.releaseUpdate();
+            this.releaseVisualizer(this.mWaveCapture);
             this.releaseMediaPlayer(this.mPlayer);
 
             // To null
-            this.mExecutor = null;
-            this.mVisualizer = null;
+            this.mWaveCapture = null;
             this.mPlayer = null;
 
             // Event
@@ -524,13 +1079,18 @@ public class ScPlayerButton extends View {
         this.mTimePaint.setTextSize(this.mFontSize);
 
         // Get the time to display
-        int time = this.mMediaDuration;
+        int time = this.getLoadedDuration();
         if (this.isSelected() &&
                 this.mPlayer != null && this.mPlayer.isPlaying())
             time = this.mPlayer.getCurrentPosition();
-
-        // Format the duration and get the dimension
-        String timeFormatted = this.formatTime(time);
+        if (this.isSelected() && this.mSoundStream != 0)
+            time = (int) Math.min(this.getSoundDuration(),
+                    SystemClock.uptimeMillis() - this.mSoundStart);
+
+        // Format the duration and get the dimension.
+        // Until the duration is loaded will be shown a placeholder.
+        String timeFormatted = time < 0 ?
+                ScPlayerButton.TIME_PLACEHOLDER : this.formatTime(time);
         this.mTimePaint.getTextBounds(timeFormatted, 0, timeFormatted.length(), this.mGenericRect);
 
         // Calculate the position
@@ -548,16 +1108,41 @@ public class ScPlayerButton extends View {
         );
     }
 
+    /**
+     * Draw the indeterminate preparing indicator as a rotating arc.
+     *
+     * @param canvas the canvas
+     * @param area   the bounds
+     */
+    private void drawPreparing(Canvas canvas, Rect area) {
+        // Calculate the indicator area
+        float radius = Math.min(area.width(), area.height()) / 4.0f;
+        this.mGenericRectF.set(
+                area.exactCenterX() - radius, area.exactCenterY() - radius,
+                area.exactCenterX() + radius, area.exactCenterY() + radius);
+
+        // Find the current angle by the time
+        long time = SystemClock.uptimeMillis() % ScPlayerButton.PREPARING_ROUND;
+        float angle = 360.0f * time / ScPlayerButton.PREPARING_ROUND;
+
+        // Draw
+        this.mWavePaint.setColor(this.mColor);
+        canvas.drawArc(this.mGenericRectF,
+                angle, ScPlayerButton.PREPARING_SWEEP, false, this.mWavePaint);
+    }
+
     /**
      * Draw the wave form on the canvas.
+     * The data are already decimated to one minimum and maximum pair for pixel column so
+     * every column is drawn as a single vertical segment.
      *
      * @param canvas the canvas
      * @param area   the bounds
-     * @param data   the data to visualize
+     * @param buffer the decimated data buffer
      */
-    private void drawWave(Canvas canvas, Rect area, byte[] data) {
-        // Reset the path
-        this.mGenericPath.reset();
+    private void drawWave(Canvas canvas, Rect area, ScWaveBuffer buffer) {
+        // Trace
+        boolean traced = ScTrace.begin("ScPlayerButton.drawWave", this);
 
         // Apply margin
         int margin = 10;
@@ -566,37 +1151,58 @@ public class ScPlayerButton extends View {
                 area.right - margin, area.bottom - margin
         );
 
-        // Check for empty values
-        if (data == null) {
-            // Create an horizontal line
-            this.mGenericPath.moveTo(area.left, area.centerY());
-            this.mGenericPath.lineTo(area.right, area.centerY());
-
-        } else {
-            // Calculate the scale
-            float xScale = area.width() / (float) data.length;
-            float yScale = area.height() / 255.0f;
+        // The next captures will be decimated on the current width
+        this.mWaveColumns = Math.max(0, area.width());
+        this.mWavePaint.setColor(this.mColor);
 
-            // Create the path
-            for (int index = 0; index < data.length; index++) {
-                // Get the signed value
-                int value = data[index] & 0xff;
+        // Take the last complete capture
+        float[] data = null;
+        int length = 0;
+        if (buffer != null) {
+            buffer.acquire();
+            data = buffer.getReadBuffer();
+            length = buffer.getReadLength();
+        }
 
-                // Calculate the position
-                float x = area.left + index * xScale;
-                float y = area.top + value * yScale;
+        // Check for empty values
+        if (length == 0) {
+            // Draw an horizontal line
+            canvas.drawLine(area.left, area.centerY(), area.right, area.centerY(),
+                    this.mWavePaint);
+            ScTrace.end(traced);
+            return;
+        }
 
-                // Add to path the new position
-                if (index == 0)
-                    this.mGenericPath.moveTo(x, y);
-                else
-                    this.mGenericPath.lineTo(x, y);
-            }
+        // Calculate the scale
+        int columns = length / 2;
+        float xScale = area.width() / (float) columns;
+        float yScale = area.height();
+
+        // Reuse the segments array
+        if (this.mWaveLines.length < columns * 4)
+            this.mWaveLines = new float[columns * 4];
+
+        // Create the segments
+        for (int column = 0; column < columns; column++) {
+            float x = area.left + column * xScale;
+            float min = area.top + data[column * 2] * yScale;
+            float max = area.top + data[column * 2 + 1] * yScale;
+
+            // Keep visible the flat columns
+            if (max - min < 1.0f)
+                max = min + 1.0f;
+
+            int index = column * 4;
+            this.mWaveLines[index] = x;
+            this.mWaveLines[index + 1] = min;
+            this.mWaveLines[index + 2] = x;
+            this.mWaveLines[index + 3] = max;
         }
 
-        // Draw the path on canvas
-        this.mWavePaint.setColor(this.mColor);
-        canvas.drawPath(this.mGenericPath, this.mWavePaint);
+        // Draw the segments on canvas
+        canvas.drawLines(this.mWaveLines, 0, columns * 4, this.mWavePaint);
+
+        ScTrace.end(traced);
     }
 
     /**
@@ -646,13 +1252,47 @@ public class ScPlayerButton extends View {
      */
     @Override
     public boolean onTouchEvent(MotionEvent e) {
+        // Press feedback
+        this.mRipple.onTouchEvent(e);
+
         // Single click
-        if (this.mDetector.onTouchEvent(e))
+        if (this.getDetector().onTouchEvent(e))
             this.fireClick();
 
         return true;
     }
 
+    /**
+     * Draw the press feedback over all the component content
+     *
+     * @param canvas to draw
+     */
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        this.mRipple.draw(canvas);
+    }
+
+    /**
+     * Manage the press feedback drawable
+     */
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who) || this.mRipple.verify(who);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        this.mRipple.setState(this.getDrawableState());
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        this.mRipple.jumpToCurrentState();
+    }
+
     /**
      * Draw the component by the settings
      *
@@ -660,17 +1300,23 @@ public class ScPlayerButton extends View {
      */
     @Override
     protected void onDraw(Canvas canvas) {
+        // Create the painters if needed
+        this.initPainters();
+
         // Get the drawing area
-        this.mDrawingArea.set(0, 0, canvas.getWidth(), canvas.getHeight());
+        this.mDrawingArea.set(0, 0, this.getWidth(), this.getHeight());
 
         // Draw the time and get back the new drawing area reduced by the
         // time label height
         this.mDrawingArea = this.drawTime(canvas, this.mDrawingArea);
 
         // By the status
-        if (this.isSelected() && this.checkRequestedPermission())
+        if (this.mPreparing != null || this.mSoundRequest != null)
+            // Waiting for the player or for the sound decoding
+            this.drawPreparing(canvas, this.mDrawingArea);
+        else if (this.isSelected() && this.mSoundStream == 0 && this.checkRequestedPermission())
             // If pressed the sound is playing so draw the wave
-            this.drawWave(canvas, this.mDrawingArea, this.mWaveToken);
+            this.drawWave(canvas, this.mDrawingArea, this.mWaveBuffer);
         else
             // If not pressed not playing the media draw the icon
             this.drawIcon(canvas, this.mDrawingArea);
@@ -704,6 +1350,27 @@ public class ScPlayerButton extends View {
     }
 
 
+    /**
+     * Attach and detach the component from parents.
+     * The refresh ticker is unregistered from the frame clock when detached.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        this.releaseUpdate();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        // Restart the refresh ticker if still preparing or playing
+        if (this.mPreparing != null || (this.mPlayer != null && this.mWaveCapture == null) ||
+                this.mSoundRequest != null || this.mSoundStream != 0)
+            this.initUpdate();
+    }
+
+
     // ***************************************************************************************
     // Instance state
 
@@ -724,6 +1391,10 @@ public class ScPlayerButton extends View {
         state.putString("mSource", this.mSource);
         state.putInt("mColor", this.mColor);
         state.putFloat("mFontSize", this.mFontSize);
+        state.putBoolean("mPressFeedback", this.mPressFeedback);
+        state.putInt("mRippleColor", this.mRippleColor);
+        state.putInt("mPlayMode", this.mPlayMode.ordinal());
+        state.putInt("mPreloadCount", this.mPreloadCount);
 
         // Return the new state
         return state;
@@ -745,8 +1416,14 @@ public class ScPlayerButton extends View {
 
         // Now can restore all the saved variables values
         this.mSource = savedState.getString("mSource");
+        this.resetDuration();
         this.mColor = savedState.getInt("mColor");
         this.mFontSize = savedState.getFloat("mFontSize");
+        this.mPressFeedback = savedState.getBoolean("mPressFeedback");
+        this.mRippleColor = savedState.getInt("mRippleColor");
+        this.mPlayMode = PlayMode.values()[savedState.getInt("mPlayMode")];
+        this.mPreloadCount = savedState.getInt("mPreloadCount");
+        this.updateRipple();
     }
 
 
@@ -755,12 +1432,41 @@ public class ScPlayerButton extends View {
 
     /**
      * Get back the media duration.
+     * The duration is loaded on the background so until it arrives will be returned zero.
      *
      * @return in milliseconds
      */
     @SuppressWarnings("unused")
     public int getDuration() {
-        return this.mMediaDuration;
+        return Math.max(0, this.getLoadedDuration());
+    }
+
+    /**
+     * Prefetch the metadata of many media on the shared background loaders so the player
+     * buttons bound to these sources later will show the duration immediately.
+     * The sources already loaded or loading are skipped and the buttons already waiting for
+     * one of these sources will receive the result too.
+     * The visible sources are loaded before the off screen ones and before any previous
+     * off screen request.
+     * NOTE that this method must be called from the main thread.
+     *
+     * @param context the context
+     * @param sources the media paths
+     * @param visible true if the sources are visible on screen
+     */
+    @SuppressWarnings("unused")
+    public static void prefetch(Context context, Iterable<String> sources, boolean visible) {
+        ScMetadataLoader.prefetch(context, sources, visible ?
+                ScMetadataLoader.PRIORITY_VISIBLE : ScMetadataLoader.PRIORITY_PREFETCH);
+    }
+
+    /**
+     * Discard all the players prepared in advance by the preloading.
+     * NOTE that this is done automatically when the system ask to release memory.
+     */
+    @SuppressWarnings("unused")
+    public static void discardPreloaded() {
+        ScPreloader.discard();
     }
 
     /**
@@ -770,7 +1476,7 @@ public class ScPlayerButton extends View {
      */
     @SuppressWarnings("unused")
     public boolean isPlaying() {
-        return this.mPlayer != null && this.mPlayer.isPlaying();
+        return (this.mPlayer != null && this.mPlayer.isPlaying()) || this.mSoundStream != 0;
     }
 
     /**
@@ -814,8 +1520,8 @@ public class ScPlayerButton extends View {
         if (!this.equals(this.mSource, value)) {
             // Store the new value
             this.mSource = value;
-            // Retrieve the new duration
-            this.mMediaDuration = this.getMediaDuration(value);
+            // The new duration will be retrieved when needed
+            this.resetDuration();
             this.invalidate();
         }
     }
@@ -842,6 +1548,7 @@ public class ScPlayerButton extends View {
         if (this.mColor != value) {
             // Store the new value
             this.mColor = value;
+            this.updateRipple();
             this.invalidate();
         }
     }
@@ -934,6 +1641,123 @@ public class ScPlayerButton extends View {
     }
 
 
+    /**
+     * Get the press feedback status
+     *
+     * @return true if enabled
+     */
+    @SuppressWarnings("unused")
+    public boolean getPressFeedback() {
+        return this.mPressFeedback;
+    }
+
+    /**
+     * Enable or disable the press feedback ripple
+     *
+     * @param value true if enabled
+     */
+    @SuppressWarnings("unused")
+    public void setPressFeedback(boolean value) {
+        if (this.mPressFeedback != value) {
+            this.mPressFeedback = value;
+            this.updateRipple();
+            this.invalidate();
+        }
+    }
+
+
+    /**
+     * Get the press feedback ripple color
+     *
+     * @return the color
+     */
+    @SuppressWarnings("unused")
+    public int getRippleColor() {
+        return this.mRippleColor;
+    }
+
+    /**
+     * Set the press feedback ripple color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setRippleColor(int value) {
+        if (this.mRippleColor != value) {
+            this.mRippleColor = value;
+            this.updateRipple();
+            this.invalidate();
+        }
+    }
+
+
+    /**
+     * Get the play mode
+     *
+     * @return the mode
+     */
+    @SuppressWarnings("unused")
+    public PlayMode getPlayMode() {
+        return this.mPlayMode;
+    }
+
+    /**
+     * Set the play mode.
+     * The new mode will be used from the next play.
+     *
+     * @param value the mode
+     */
+    @SuppressWarnings("unused")
+    public void setPlayMode(PlayMode value) {
+        this.mPlayMode = value;
+    }
+
+
+
+    /**
+     * Get the number of the next sources prepared while playing
+     *
+     * @return the number, zero if the preloading is disabled
+     */
+    @SuppressWarnings("unused")
+    public int getPreloadCount() {
+        return this.mPreloadCount;
+    }
+
+    /**
+     * Set the number of the next sources prepared while playing.
+     * Set zero to disable the preloading.
+     *
+     * @param value the number
+     */
+    @SuppressWarnings("unused")
+    public void setPreloadCount(int value) {
+        this.mPreloadCount = Math.max(0, value);
+    }
+
+
+    /**
+     * Get the sources that will be probably played after this button source
+     *
+     * @return the sources or null if taken from the next buttons inside the same parent
+     */
+    @SuppressWarnings("unused")
+    public List<String> getPreloadHint() {
+        return this.mPreloadHint;
+    }
+
+    /**
+     * Set the sources that will be probably played after this button source, in order.
+     * If null the sources will be taken from the next player buttons inside the same parent.
+     *
+     * @param value the sources
+     */
+    @SuppressWarnings("unused")
+    public void setPreloadHint(List<String> value) {
+        this.mPreloadHint = value;
+    }
+
+
     // *******************************************************************************************
     // Public listener and interface
 
@@ -945,8 +1769,9 @@ public class ScPlayerButton extends View {
 
         /**
          * When start to play some media.
+         * If the media is played as sound by the shared sound pool the player is null.
          *
-         * @param player the media player object
+         * @param player the media player object or null
          */
         void onStartPlay(MediaPlayer player);
 
@@ -967,4 +1792,31 @@ public class ScPlayerButton extends View {
         this.mEventListener = listener;
     }
 
+
+    /**
+     * Prepare listener
+     */
+    @SuppressWarnings("all")
+    public interface OnPrepareListener {
+
+        /**
+         * When the media player is prepared, just before start to play.
+         *
+         * @param player       the media player object
+         * @param milliseconds the time spent to prepare the player
+         */
+        void onPrepared(MediaPlayer player, long milliseconds);
+
+    }
+
+    /**
+     * Set the prepare listener
+     *
+     * @param listener the listener
+     */
+    @SuppressWarnings("unused")
+    public void setOnPrepareListener(OnPrepareListener listener) {
+        this.mPrepareListener = listener;
+    }
+
 }
@@ -0,0 +1,318 @@
+package com.sccomponents.buttons;
+
+import android.media.MediaPlayer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The media players pool shared by all the player buttons.
+ * The released players are reset and kept for be reused by the next play so the native
+ * player creation is paid only once, and the number of players active at the same time is
+ * limited by the pool. When the limit is reached the new request can stop the oldest active
+ * player or can be rejected.
+ * The players obtained for speculative use, like the preloading, never stop another player
+ * and are the first to be stopped when the limit is reached.
+ * NOTE that the pool must be used from the main thread only.
+ */
+
+public final class ScPlayerPool {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int MAX_ACTIVE = 4;
+    private static final int MAX_IDLE = 2;
+
+    private static Map<MediaPlayer, OnEvictListener> mActive = new LinkedHashMap<>();
+    private static List<MediaPlayer> mIdle = new ArrayList<>();
+    private static Set<MediaPlayer> mSpeculative = new HashSet<>();
+
+    private static int mMaxActive = ScPlayerPool.MAX_ACTIVE;
+    private static int mMaxIdle = ScPlayerPool.MAX_IDLE;
+    private static Policy mPolicy = Policy.STOP_OLDEST;
+
+
+    // ***************************************************************************************
+    // Enumerators
+
+    /**
+     * What to do when a player is requested and the active players limit is reached.
+     */
+    @SuppressWarnings("unused")
+    public enum Policy {
+        STOP_OLDEST,
+        REJECT
+    }
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScPlayerPool() {
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Stop the oldest active player giving it back to the pool.
+     * The speculative players are stopped before the others.
+     *
+     * @param speculative true if only a speculative player can be stopped
+     * @return the player or null if no one can be stopped
+     */
+    private static MediaPlayer evictOldest(boolean speculative) {
+        // Find the oldest speculative or, if not exists, the oldest at all
+        Map.Entry<MediaPlayer, OnEvictListener> oldest = null;
+        for (Map.Entry<MediaPlayer, OnEvictListener> entry : ScPlayerPool.mActive.entrySet()) {
+            if (oldest == null && !speculative)
+                oldest = entry;
+            if (ScPlayerPool.mSpeculative.contains(entry.getKey())) {
+                oldest = entry;
+                break;
+            }
+        }
+        if (oldest == null)
+            return null;
+
+        ScPlayerPool.mActive.remove(oldest.getKey());
+        ScPlayerPool.mSpeculative.remove(oldest.getKey());
+
+        // Inform the owner before reset the player
+        MediaPlayer player = oldest.getKey();
+        try {
+            oldest.getValue().onEvicted(player);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+
+        ScPlayerPool.reset(player);
+        return player;
+    }
+
+    /**
+     * Reset the player removing all the owner listeners
+     *
+     * @param player the player
+     */
+    private static void reset(MediaPlayer player) {
+        player.setOnPreparedListener(null);
+        player.setOnCompletionListener(null);
+        player.setOnErrorListener(null);
+        player.reset();
+    }
+
+    /**
+     * Release the idle players over the limit
+     */
+    private static void trimIdle() {
+        while (ScPlayerPool.mIdle.size() > ScPlayerPool.mMaxIdle)
+            ScPlayerPool.mIdle.remove(ScPlayerPool.mIdle.size() - 1).release();
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Get a player in the idle state.
+     * If the active players limit is reached the oldest speculative player will be stopped,
+     * if no one exists, by the policy, the oldest active player will be stopped or null will
+     * be returned.
+     *
+     * @param owner the listener called if the player will be stopped by the pool
+     * @return the player or null if rejected
+     */
+    static MediaPlayer obtain(OnEvictListener owner) {
+        // Check the limit
+        MediaPlayer player = null;
+        if (ScPlayerPool.mActive.size() >= ScPlayerPool.mMaxActive) {
+            // A real request always win on the speculative players
+            player = ScPlayerPool.evictOldest(true);
+            if (player == null) {
+                if (ScPlayerPool.mPolicy == Policy.REJECT)
+                    return null;
+                player = ScPlayerPool.evictOldest(false);
+            }
+        }
+
+        // Reuse or create
+        if (player == null)
+            player = ScPlayerPool.mIdle.isEmpty() ?
+                    new MediaPlayer() : ScPlayerPool.mIdle.remove(ScPlayerPool.mIdle.size() - 1);
+
+        ScPlayerPool.mActive.put(player, owner);
+        return player;
+    }
+
+    /**
+     * Get a player in the idle state for a speculative use.
+     * The player is given only if the active players limit is not reached and it will be
+     * the first to be stopped when another player is requested.
+     *
+     * @param owner the listener called if the player will be stopped by the pool
+     * @return the player or null if the limit is reached
+     */
+    static MediaPlayer obtainSpeculative(OnEvictListener owner) {
+        // Never stop another player
+        if (ScPlayerPool.mActive.size() >= ScPlayerPool.mMaxActive)
+            return null;
+
+        MediaPlayer player = ScPlayerPool.obtain(owner);
+        ScPlayerPool.mSpeculative.add(player);
+        return player;
+    }
+
+    /**
+     * Give an active player to a new owner.
+     * The player is not more speculative and become the newest active player.
+     *
+     * @param player the player
+     * @param owner  the new owner
+     */
+    static void transfer(MediaPlayer player, OnEvictListener owner) {
+        // Check if belong to the active players
+        if (ScPlayerPool.mActive.remove(player) == null)
+            return;
+
+        ScPlayerPool.mSpeculative.remove(player);
+        ScPlayerPool.mActive.put(player, owner);
+    }
+
+    /**
+     * Give back a player to the pool.
+     * The player will be reset and kept for be reused or released if there are already
+     * enough idle players.
+     *
+     * @param player the player
+     */
+    static void recycle(MediaPlayer player) {
+        // Check if belong to the active players
+        if (player == null || ScPlayerPool.mActive.remove(player) == null)
+            return;
+        ScPlayerPool.mSpeculative.remove(player);
+
+        try {
+            ScPlayerPool.reset(player);
+            ScPlayerPool.mIdle.add(player);
+            ScPlayerPool.trimIdle();
+
+        } catch (Exception ex) {
+            // A player in error state cannot be reused
+            ex.printStackTrace();
+            player.release();
+        }
+    }
+
+    /**
+     * Release all the idle players
+     */
+    @SuppressWarnings("unused")
+    public static void trim() {
+        for (MediaPlayer player : ScPlayerPool.mIdle)
+            player.release();
+        ScPlayerPool.mIdle.clear();
+    }
+
+    /**
+     * Get the active players number
+     *
+     * @return the number
+     */
+    @SuppressWarnings("unused")
+    public static int getActiveCount() {
+        return ScPlayerPool.mActive.size();
+    }
+
+
+    /**
+     * Get the maximum number of players active at the same time
+     *
+     * @return the limit
+     */
+    @SuppressWarnings("unused")
+    public static int getMaxActive() {
+        return ScPlayerPool.mMaxActive;
+    }
+
+    /**
+     * Set the maximum number of players active at the same time.
+     * The players already active over the new limit are not stopped.
+     *
+     * @param value the limit
+     */
+    @SuppressWarnings("unused")
+    public static void setMaxActive(int value) {
+        ScPlayerPool.mMaxActive = Math.max(1, value);
+    }
+
+
+    /**
+     * Get the maximum number of idle players kept for be reused
+     *
+     * @return the limit
+     */
+    @SuppressWarnings("unused")
+    public static int getMaxIdle() {
+        return ScPlayerPool.mMaxIdle;
+    }
+
+    /**
+     * Set the maximum number of idle players kept for be reused
+     *
+     * @param value the limit
+     */
+    @SuppressWarnings("unused")
+    public static void setMaxIdle(int value) {
+        ScPlayerPool.mMaxIdle = Math.max(0, value);
+        ScPlayerPool.trimIdle();
+    }
+
+
+    /**
+     * Get the policy used when the active players limit is reached
+     *
+     * @return the policy
+     */
+    @SuppressWarnings("unused")
+    public static Policy getPolicy() {
+        return ScPlayerPool.mPolicy;
+    }
+
+    /**
+     * Set the policy used when the active players limit is reached
+     *
+     * @param value the policy
+     */
+    @SuppressWarnings("unused")
+    public static void setPolicy(Policy value) {
+        ScPlayerPool.mPolicy = value;
+    }
+
+
+    // *******************************************************************************************
+    // Public listener and interface
+
+    /**
+     * Evict listener
+     */
+    interface OnEvictListener {
+
+        /**
+         * Called when the pool stop an active player to give it to another owner.
+         * The owner must release every resource linked to the player and must not give it
+         * back to the pool.
+         *
+         * @param player the player
+         */
+        void onEvicted(MediaPlayer player);
+
+    }
+
+}
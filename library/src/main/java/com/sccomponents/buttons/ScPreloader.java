@@ -0,0 +1,234 @@
+package com.sccomponents.buttons;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.media.MediaPlayer;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ready set of the media players prepared in advance for the sources that probably will
+ * be played next.
+ * The players are taken from the shared pool as speculative so the preloading never stop a
+ * playing media and a real request always win on it. When a button start to play one of the
+ * preloaded sources the player is handed over to the button without any preparation.
+ * The set is bounded, the oldest preparations are discarded first, and it is emptied when
+ * the system ask to release memory.
+ * NOTE that the preloader must be used from the main thread only.
+ */
+
+final class ScPreloader {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int MAX_READY = 3;
+
+    private static Map<String, Entry> mReady = new LinkedHashMap<>();
+    private static EvictListener mEvictListener = null;
+    private static MemoryCallbacks mMemoryCallbacks = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScPreloader() {
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * A preloaded player
+     */
+    static final class Entry {
+
+        String mSource;
+        MediaPlayer mPlayer;
+        boolean mPrepared;
+
+    }
+
+
+    /**
+     * Forget the players stopped by the pool
+     */
+    private static final class EvictListener implements ScPlayerPool.OnEvictListener {
+
+        @Override
+        public void onEvicted(MediaPlayer player) {
+            // The player is already owned by the pool
+            Iterator<Entry> iterator = ScPreloader.mReady.values().iterator();
+            while (iterator.hasNext())
+                if (iterator.next().mPlayer == player)
+                    iterator.remove();
+        }
+
+    }
+
+
+    /**
+     * Discard all the preparations when the system is low on memory
+     */
+    private static final class MemoryCallbacks implements ComponentCallbacks2 {
+
+        @Override
+        public void onTrimMemory(int level) {
+            // Any level means that the app should release what is not strictly needed
+            ScPreloader.discard();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration configuration) {
+            // NOP
+        }
+
+        @Override
+        public void onLowMemory() {
+            ScPreloader.discard();
+        }
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Start to prepare the player of a source
+     *
+     * @param context the application context
+     * @param source  the source
+     */
+    private static void prepare(Context context, String source) {
+        // Get a speculative player from the pool
+        MediaPlayer player = ScPlayerPool.obtainSpeculative(ScPreloader.mEvictListener);
+        if (player == null)
+            return;
+
+        // Holder
+        final Entry entry = new Entry();
+        entry.mSource = source;
+        entry.mPlayer = player;
+
+        try {
+            // Settings
+            player.setDataSource(context, Uri.parse(source));
+            player.setLooping(false);
+            player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+                @Override
+                public void onPrepared(MediaPlayer mediaPlayer) {
+                    entry.mPrepared = true;
+                }
+            });
+            player.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+                @Override
+                public boolean onError(MediaPlayer mediaPlayer, int what, int extra) {
+                    ScPreloader.remove(entry);
+                    return true;
+                }
+            });
+
+            // Prepare
+            player.prepareAsync();
+            ScPreloader.mReady.put(source, entry);
+
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
+            ScPlayerPool.recycle(player);
+        }
+    }
+
+    /**
+     * Remove an entry and give back its player to the pool
+     *
+     * @param entry the entry
+     */
+    private static void remove(Entry entry) {
+        if (ScPreloader.mReady.get(entry.mSource) == entry) {
+            ScPreloader.mReady.remove(entry.mSource);
+            ScPlayerPool.recycle(entry.mPlayer);
+        }
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Prepare the players of the sources in the given order.
+     * The sources already preloaded are kept and, if the set is full, the oldest preparations
+     * are discarded to leave space to the new ones.
+     *
+     * @param context the context
+     * @param sources the sources that will be probably played next
+     */
+    static void preload(Context context, List<String> sources) {
+        // Create the listeners the first time
+        Context application = context.getApplicationContext();
+        if (ScPreloader.mEvictListener == null) {
+            ScPreloader.mEvictListener = new EvictListener();
+            ScPreloader.mMemoryCallbacks = new MemoryCallbacks();
+            application.registerComponentCallbacks(ScPreloader.mMemoryCallbacks);
+        }
+
+        // Find the sources to prepare
+        List<String> missing = new ArrayList<>();
+        for (String source : sources)
+            if (source != null && !ScPreloader.mReady.containsKey(source) &&
+                    !missing.contains(source) && missing.size() < ScPreloader.MAX_READY)
+                missing.add(source);
+
+        // Discard the oldest preparations not requested again
+        Iterator<Entry> iterator = ScPreloader.mReady.values().iterator();
+        while (iterator.hasNext() &&
+                ScPreloader.mReady.size() + missing.size() > ScPreloader.MAX_READY) {
+            Entry entry = iterator.next();
+            if (sources.contains(entry.mSource))
+                continue;
+
+            iterator.remove();
+            ScPlayerPool.recycle(entry.mPlayer);
+        }
+
+        // Prepare
+        for (String source : missing)
+            if (ScPreloader.mReady.size() < ScPreloader.MAX_READY)
+                ScPreloader.prepare(application, source);
+    }
+
+    /**
+     * Take the preloaded player of the source removing it from the set.
+     * The caller become the player owner and must transfer it inside the pool.
+     *
+     * @param source the source
+     * @return the entry or null if the source is not preloaded
+     */
+    static Entry take(String source) {
+        Entry entry = source != null ? ScPreloader.mReady.remove(source) : null;
+        if (entry != null) {
+            // Remove the preloader listeners
+            entry.mPlayer.setOnPreparedListener(null);
+            entry.mPlayer.setOnErrorListener(null);
+        }
+        return entry;
+    }
+
+    /**
+     * Discard all the preloaded players
+     */
+    static void discard() {
+        for (Entry entry : ScPreloader.mReady.values())
+            ScPlayerPool.recycle(entry.mPlayer);
+        ScPreloader.mReady.clear();
+    }
+
+}
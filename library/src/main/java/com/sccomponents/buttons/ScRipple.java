@@ -0,0 +1,237 @@
+package com.sccomponents.buttons;
+
+import android.annotation.TargetApi;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.RippleDrawable;
+import android.os.Build;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Press feedback for the library components.
+ * Use a platform ripple bounded by the component corner radius that, when drawn on an
+ * hardware accelerated canvas, is animated by the render thread so after the touch down
+ * will not cost anything on the main thread.
+ * The ripple drawable is created only on the first touch and only from Android 5.0, on the
+ * older devices only the pressed state will be managed.
+ */
+
+final class ScRipple {
+
+    // ***************************************************************************************
+    // Constants
+
+    private static final int DEFAULT_ALPHA = 0x40;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private View mOwner = null;
+    private Drawable mDrawable = null;
+    private GradientDrawable mMask = null;
+
+    private boolean mEnabled = true;
+    private int mColor = Color.WHITE;
+    private float mCornerRadius = 0;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    ScRipple(View owner) {
+        this.mOwner = owner;
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Check if the ripple is supported by the current device
+     *
+     * @return true if supported
+     */
+    private static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+    }
+
+    /**
+     * Create the ripple drawable
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void create() {
+        // The mask bound the ripple inside the component shape
+        this.mMask = new GradientDrawable();
+        this.mMask.setColor(Color.WHITE);
+        this.mMask.setCornerRadius(this.mCornerRadius);
+
+        // Create and attach to the owner
+        this.mDrawable = new RippleDrawable(
+                ColorStateList.valueOf(this.mColor), null, this.mMask);
+        this.mDrawable.setCallback(this.mOwner);
+        this.mDrawable.setState(this.mOwner.getDrawableState());
+    }
+
+    /**
+     * Apply the current color to the ripple drawable
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void applyColor() {
+        if (this.mDrawable != null)
+            ((RippleDrawable) this.mDrawable).setColor(ColorStateList.valueOf(this.mColor));
+    }
+
+    /**
+     * Set the hotspot position
+     *
+     * @param x the horizontal position
+     * @param y the vertical position
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void setHotspot(float x, float y) {
+        if (this.mDrawable != null)
+            this.mDrawable.setHotspot(x, y);
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Get a default ripple color starting from a base color
+     *
+     * @param color the base color
+     * @return the ripple color
+     */
+    static int getDefaultColor(int color) {
+        return (color & 0x00FFFFFF) | (ScRipple.DEFAULT_ALPHA << 24);
+    }
+
+    /**
+     * Manage the touch event settings the pressed state and the ripple hotspot
+     *
+     * @param e the event
+     */
+    void onTouchEvent(MotionEvent e) {
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Create only when really needed
+                if (this.mEnabled && this.mDrawable == null && ScRipple.isSupported())
+                    this.create();
+
+                this.setHotspot(e.getX(), e.getY());
+                this.mOwner.setPressed(true);
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                this.setHotspot(e.getX(), e.getY());
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                this.mOwner.setPressed(false);
+                break;
+        }
+    }
+
+    /**
+     * Draw the ripple on the whole owner area
+     *
+     * @param canvas where to draw
+     */
+    void draw(Canvas canvas) {
+        if (this.mEnabled && this.mDrawable != null) {
+            this.mDrawable.setBounds(0, 0, this.mOwner.getWidth(), this.mOwner.getHeight());
+            this.mDrawable.draw(canvas);
+        }
+    }
+
+    /**
+     * Check if the drawable is the ripple
+     *
+     * @param who the drawable to check
+     * @return true if is the ripple
+     */
+    boolean verify(Drawable who) {
+        return who != null && who == this.mDrawable;
+    }
+
+    /**
+     * Update the ripple state
+     *
+     * @param state the owner drawable state
+     */
+    void setState(int[] state) {
+        if (this.mDrawable != null)
+            this.mDrawable.setState(state);
+    }
+
+    /**
+     * Jump the animations to the final state
+     */
+    void jumpToCurrentState() {
+        if (this.mDrawable != null)
+            this.mDrawable.jumpToCurrentState();
+    }
+
+
+    /**
+     * Get if the ripple is enabled
+     *
+     * @return true if enabled
+     */
+    boolean getEnabled() {
+        return this.mEnabled;
+    }
+
+    /**
+     * Enable or disable the ripple
+     *
+     * @param value true if enabled
+     */
+    void setEnabled(boolean value) {
+        this.mEnabled = value;
+    }
+
+
+    /**
+     * Get the ripple color
+     *
+     * @return the color
+     */
+    int getColor() {
+        return this.mColor;
+    }
+
+    /**
+     * Set the ripple color
+     *
+     * @param value the color
+     */
+    void setColor(int value) {
+        if (this.mColor != value) {
+            this.mColor = value;
+            this.applyColor();
+        }
+    }
+
+
+    /**
+     * Set the ripple corner radius
+     *
+     * @param value the radius in pixel
+     */
+    void setCornerRadius(float value) {
+        if (this.mCornerRadius != value) {
+            this.mCornerRadius = value;
+            if (this.mMask != null)
+                this.mMask.setCornerRadius(value);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.sccomponents.buttons;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+/**
+ * Render the components images outside the view hierarchy, for example for the app widgets,
+ * the notifications or for export them.
+ * Every thread use its own detached component created with the renderer style so many
+ * images can be rendered in parallel from any background thread. The component is drawn
+ * using the same draw methods used on screen.
+ * The style resource is applied to the component theme so it must define the component
+ * attributes directly.
+ */
+
+public final class ScSnapshotRenderer {
+
+    // ***************************************************************************************
+    // Enumerators
+
+    /**
+     * The component type.
+     */
+    @SuppressWarnings("unused")
+    public enum Type {
+        TOGGLE_BUTTON,
+        SWITCH
+    }
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private Context mContext = null;
+    private Type mType = null;
+    private ThreadLocal<Holder> mHolders = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    public ScSnapshotRenderer(Context context, Type type, int styleRes) {
+        // Apply the style on a dedicated theme
+        ContextThemeWrapper wrapper = new ContextThemeWrapper(context, styleRes);
+        // Create the theme now as the wrapper create it lazily and is not thread safe
+        wrapper.getTheme();
+
+        this.mContext = wrapper;
+        this.mType = type;
+        this.mHolders = new ThreadLocal<>();
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * The thread component with its styled texts
+     */
+    private static final class Holder {
+
+        ScToggleButton mButton;
+        String mText;
+        String mTextOn;
+        String mTextOff;
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the component of the current thread creating it the first time
+     *
+     * @return the holder
+     */
+    private Holder getHolder() {
+        // Check if already created
+        Holder holder = this.mHolders.get();
+        if (holder != null)
+            return holder;
+
+        // Create the component
+        holder = new Holder();
+        if (this.mType == Type.SWITCH) {
+            // Draw directly as the thumb cache is useless for a single image
+            ScSwitch button = new ScSwitch(this.mContext);
+            button.setRenderMode(ScSwitch.RenderMode.DIRECT);
+            holder.mButton = button;
+        } else
+            holder.mButton = new ScToggleButton(this.mContext);
+
+        // Store the styled texts
+        holder.mText = holder.mButton.getText();
+        holder.mTextOn = holder.mButton.getTextOn();
+        holder.mTextOff = holder.mButton.getTextOff();
+
+        this.mHolders.set(holder);
+        return holder;
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Render the component on the canvas starting from its origin
+     *
+     * @param canvas   where to draw
+     * @param width    the component width
+     * @param height   the component height
+     * @param selected the component status
+     * @param text     the text to show for any status, if null will be used the styled texts
+     */
+    @SuppressWarnings("unused")
+    public void render(Canvas canvas, int width, int height, boolean selected, String text) {
+        // Trace
+        boolean traced = ScTrace.begin("ScSnapshotRenderer.render", null);
+
+        // Apply the texts
+        Holder holder = this.getHolder();
+        ScToggleButton button = holder.mButton;
+        button.setText(text != null ? text : holder.mText);
+        button.setTextOn(text != null ? null : holder.mTextOn);
+        button.setTextOff(text != null ? null : holder.mTextOff);
+
+        // The status is applied without the group management
+        button.applySelectedQuietly(selected);
+
+        // Layout only if the dimensions changed
+        if (button.getWidth() != width || button.getHeight() != height) {
+            button.measure(
+                    View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+            button.layout(0, 0, width, height);
+        }
+
+        // Draw
+        button.draw(canvas);
+        ScTrace.end(traced);
+    }
+
+    /**
+     * Render the component on the whole bitmap
+     *
+     * @param bitmap   where to draw, must be mutable
+     * @param selected the component status
+     * @param text     the text to show for any status, if null will be used the styled texts
+     */
+    @SuppressWarnings("unused")
+    public void render(Bitmap bitmap, boolean selected, String text) {
+        this.render(new Canvas(bitmap), bitmap.getWidth(), bitmap.getHeight(), selected, text);
+    }
+
+    /**
+     * Render the component on a new bitmap
+     *
+     * @param width    the component width
+     * @param height   the component height
+     * @param selected the component status
+     * @param text     the text to show for any status, if null will be used the styled texts
+     * @return the bitmap
+     */
+    @SuppressWarnings("unused")
+    public Bitmap render(int width, int height, boolean selected, String text) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        this.render(bitmap, selected, text);
+        return bitmap;
+    }
+
+}
@@ -0,0 +1,404 @@
+package com.sccomponents.buttons;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.SoundPool;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shared sound pool used by the player buttons to play the short clips with low latency.
+ * Every source is decoded only once and kept in memory until the memory budget is exceeded,
+ * in this case the least recently played sounds are unloaded.
+ * The decoded size is estimated by the media duration, sample rate and channels count.
+ * NOTE that the pool must be used from the main thread only.
+ */
+
+public final class ScSoundPool {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int MAX_STREAMS = 8;
+    private static final int MEMORY_BUDGET = 4 * 1024 * 1024; // Bytes
+    private static final int DEFAULT_SAMPLE_RATE = 44100;
+    private static final int DEFAULT_CHANNELS = 2;
+
+    private static SoundPool mPool = null;
+    private static Map<String, Sound> mSounds = new LinkedHashMap<>(16, 0.75f, true);
+    private static SparseArray<Sound> mSamples = new SparseArray<>();
+    private static int mMemoryBudget = ScSoundPool.MEMORY_BUDGET;
+    private static int mMemoryUsed = 0;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScSoundPool() {
+    }
+
+
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * A loaded or loading sound
+     */
+    private static final class Sound {
+
+        String mKey;
+        int mSampleId;
+        int mSize;
+        boolean mLoaded;
+        long mBusyUntil;
+        List<Request> mRequests = new ArrayList<>();
+
+    }
+
+    /**
+     * A play request waiting for the sound load
+     */
+    private static final class Request {
+
+        float mVolume;
+        int mDuration;
+        OnPlayListener mListener;
+
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the sound pool creating it the first time
+     *
+     * @return the pool
+     */
+    private static SoundPool getPool() {
+        // Check if already created
+        if (ScSoundPool.mPool != null)
+            return ScSoundPool.mPool;
+
+        // Create
+        ScSoundPool.mPool = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ?
+                ScSoundPool.createPool() :
+                ScSoundPool.createLegacyPool();
+
+        ScSoundPool.mPool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
+            @Override
+            public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
+                ScSoundPool.onLoaded(sampleId, status == 0);
+            }
+        });
+        return ScSoundPool.mPool;
+    }
+
+    /**
+     * Create the pool
+     *
+     * @return the pool
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static SoundPool createPool() {
+        return new SoundPool.Builder()
+                .setMaxStreams(ScSoundPool.MAX_STREAMS)
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Create the pool for the devices before Android 5.0
+     *
+     * @return the pool
+     */
+    @SuppressWarnings("deprecation")
+    private static SoundPool createLegacyPool() {
+        return new SoundPool(ScSoundPool.MAX_STREAMS, AudioManager.STREAM_MUSIC, 0);
+    }
+
+    /**
+     * Estimate the decoded sound size
+     *
+     * @param source   the source
+     * @param duration the duration in milliseconds
+     * @return the size in bytes
+     */
+    private static int estimateSize(String source, int duration) {
+        // Find the audio format inside the loaded metadata
+        int sampleRate = ScSoundPool.DEFAULT_SAMPLE_RATE;
+        int channels = ScSoundPool.DEFAULT_CHANNELS;
+        ScMetadataIndex.Entry entry = ScMetadataLoader.getCachedMetadata(source);
+        if (entry != null && entry.mSampleRate > 0 && entry.mChannels > 0) {
+            sampleRate = entry.mSampleRate;
+            channels = entry.mChannels;
+        }
+
+        // 16 bit PCM
+        return (int) ((long) duration * sampleRate * channels * 2 / 1000);
+    }
+
+    /**
+     * Load the sound inside the pool
+     *
+     * @param context the context
+     * @param source  the source path
+     * @return the sample id or 0 if the source cannot be loaded
+     */
+    private static int load(Context context, String source) {
+        try {
+            // Local files
+            Uri uri = Uri.parse(source);
+            if (uri.getScheme() == null || "file".equals(uri.getScheme()))
+                return ScSoundPool.getPool().load(uri.getPath(), 1);
+
+            // Content and resources
+            if ("content".equals(uri.getScheme()) ||
+                    "android.resource".equals(uri.getScheme())) {
+                AssetFileDescriptor descriptor = context.getContentResolver()
+                        .openAssetFileDescriptor(uri, "r");
+                if (descriptor != null) {
+                    int sampleId = ScSoundPool.getPool().load(descriptor, 1);
+                    descriptor.close();
+                    return sampleId;
+                }
+            }
+
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
+        }
+
+        // Remote sources are not supported
+        return 0;
+    }
+
+    /**
+     * Unload the least recently played sounds until the memory used fit the budget.
+     * The sounds loading or playing are not unloaded.
+     *
+     * @param keep the sound to keep
+     */
+    private static void trimToBudget(Sound keep) {
+        long now = SystemClock.uptimeMillis();
+        Iterator<Sound> iterator = ScSoundPool.mSounds.values().iterator();
+        while (ScSoundPool.mMemoryUsed > ScSoundPool.mMemoryBudget && iterator.hasNext()) {
+            // Check if can be unloaded
+            Sound sound = iterator.next();
+            if (sound == keep || !sound.mLoaded || sound.mBusyUntil > now)
+                continue;
+
+            // Unload
+            iterator.remove();
+            ScSoundPool.unload(sound);
+        }
+    }
+
+    /**
+     * Remove the sound from the pool
+     *
+     * @param sound the sound
+     */
+    private static void unload(Sound sound) {
+        ScSoundPool.mSamples.remove(sound.mSampleId);
+        ScSoundPool.mMemoryUsed -= sound.mSize;
+        if (ScSoundPool.mPool != null)
+            ScSoundPool.mPool.unload(sound.mSampleId);
+    }
+
+    /**
+     * Play the sound
+     *
+     * @param sound    the sound
+     * @param volume   the volume
+     * @param duration the duration in milliseconds
+     * @return the stream id or 0 if fail
+     */
+    private static int play(Sound sound, float volume, int duration) {
+        sound.mBusyUntil = SystemClock.uptimeMillis() + duration;
+        return ScSoundPool.getPool().play(sound.mSampleId, volume, volume, 1, 0, 1.0f);
+    }
+
+    /**
+     * Called when a sound is decoded
+     *
+     * @param sampleId the sample id
+     * @param success  true if loaded
+     */
+    private static void onLoaded(int sampleId, boolean success) {
+        // Find the sound
+        Sound sound = ScSoundPool.mSamples.get(sampleId);
+        if (sound == null)
+            return;
+
+        // Failed sounds are removed
+        sound.mLoaded = success;
+        if (!success) {
+            ScSoundPool.mSounds.remove(sound.mKey);
+            ScSoundPool.unload(sound);
+        }
+
+        // Execute the waiting requests
+        List<Request> requests = sound.mRequests;
+        sound.mRequests = new ArrayList<>();
+        for (Request request : requests) {
+            int streamId = success ? ScSoundPool.play(sound, request.mVolume, request.mDuration) : 0;
+            try {
+                request.mListener.onPlay(streamId);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+        ScSoundPool.trimToBudget(null);
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Play a sound decoding it only the first time.
+     * The listener is called immediately if the sound is already decoded, else when the
+     * decoding is done.
+     *
+     * @param context  the context
+     * @param source   the source
+     * @param duration the duration in milliseconds
+     * @param volume   the volume
+     * @param listener the listener that receive the stream id, zero if cannot be played
+     */
+    static void play(Context context, String source, int duration,
+                     float volume, OnPlayListener listener) {
+        // Find or load the sound
+        Sound sound = ScSoundPool.mSounds.get(source);
+        if (sound == null) {
+            int sampleId = ScSoundPool.load(context, source);
+            if (sampleId == 0) {
+                listener.onPlay(0);
+                return;
+            }
+
+            // Store
+            sound = new Sound();
+            sound.mKey = source;
+            sound.mSampleId = sampleId;
+            sound.mSize = ScSoundPool.estimateSize(source, duration);
+            ScSoundPool.mSounds.put(sound.mKey, sound);
+            ScSoundPool.mSamples.put(sampleId, sound);
+            ScSoundPool.mMemoryUsed += sound.mSize;
+        }
+
+        // Play now or when loaded
+        if (sound.mLoaded) {
+            listener.onPlay(ScSoundPool.play(sound, volume, duration));
+            ScSoundPool.trimToBudget(sound);
+
+        } else {
+            Request request = new Request();
+            request.mVolume = volume;
+            request.mDuration = duration;
+            request.mListener = listener;
+            sound.mRequests.add(request);
+        }
+    }
+
+    /**
+     * Remove the listener from the requests waiting for the sound decoding
+     *
+     * @param listener the listener
+     */
+    static void cancel(OnPlayListener listener) {
+        for (Sound sound : ScSoundPool.mSounds.values()) {
+            Iterator<Request> iterator = sound.mRequests.iterator();
+            while (iterator.hasNext())
+                if (iterator.next().mListener == listener)
+                    iterator.remove();
+        }
+    }
+
+    /**
+     * Stop a playing stream
+     *
+     * @param streamId the stream id
+     */
+    static void stop(int streamId) {
+        if (ScSoundPool.mPool != null && streamId != 0)
+            ScSoundPool.mPool.stop(streamId);
+    }
+
+    /**
+     * Unload all the sounds not in use
+     */
+    @SuppressWarnings("unused")
+    public static void trim() {
+        int budget = ScSoundPool.mMemoryBudget;
+        ScSoundPool.mMemoryBudget = 0;
+        ScSoundPool.trimToBudget(null);
+        ScSoundPool.mMemoryBudget = budget;
+    }
+
+
+    /**
+     * Get the memory budget of the decoded sounds
+     *
+     * @return the budget in bytes
+     */
+    @SuppressWarnings("unused")
+    public static int getMemoryBudget() {
+        return ScSoundPool.mMemoryBudget;
+    }
+
+    /**
+     * Set the memory budget of the decoded sounds
+     *
+     * @param value the budget in bytes
+     */
+    @SuppressWarnings("unused")
+    public static void setMemoryBudget(int value) {
+        ScSoundPool.mMemoryBudget = Math.max(0, value);
+        ScSoundPool.trimToBudget(null);
+    }
+
+    /**
+     * Get the memory used by the decoded sounds
+     *
+     * @return the estimated size in bytes
+     */
+    @SuppressWarnings("unused")
+    public static int getMemoryUsed() {
+        return ScSoundPool.mMemoryUsed;
+    }
+
+
+    // *******************************************************************************************
+    // Public listener and interface
+
+    /**
+     * Play listener
+     */
+    interface OnPlayListener {
+
+        /**
+         * Called when the sound start to play
+         *
+         * @param streamId the stream id or zero if the sound cannot be played
+         */
+        void onPlay(int streamId);
+
+    }
+
+}
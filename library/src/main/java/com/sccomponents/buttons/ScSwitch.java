@@ -1,8 +1,7 @@
 package com.sccomponents.buttons;
 
-import android.animation.ValueAnimator;
+import android.animation.TimeInterpolator;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -12,8 +11,13 @@ import android.graphics.RectF;
 import android.os.Bundle;
 import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.animation.AccelerateDecelerateInterpolator;
 
 /**
  * Create a simple switch control extending the ScToggleButton class.
@@ -28,13 +32,32 @@ public class ScSwitch extends ScToggleButton {
     private static final int MIN_HEIGHT = 24;
     private static final long ANIMATION_DURATION = 100;
     private static final int FONT_SIZE = 10;
+    private static final int BACKGROUND_COLOR = 0x803F51B5;
+    private static final TimeInterpolator INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+
+    // ***************************************************************************************
+    // Enumerators
+
+    /**
+     * The thumb rendering mode.
+     * BITMAP: the thumbs are rendered once inside two private bitmaps and reused.
+     * DIRECT: the thumb is drawn directly on the component canvas without any bitmap.
+     */
+    @SuppressWarnings("unused")
+    public enum RenderMode {
+        BITMAP,
+        DIRECT
+    }
 
 
     // ***************************************************************************************
     // Private and protected attributes
 
-    protected int mBackgroundColor = Color.parseColor("#803F51B5");
+    protected int mBackgroundColor = ScSwitch.BACKGROUND_COLOR;
     protected boolean mAnimate = true;
+    protected RenderMode mRenderMode = RenderMode.BITMAP;
+    protected long mAnimationDuration = ScSwitch.ANIMATION_DURATION;
 
 
     // ***************************************************************************************
@@ -42,9 +65,27 @@ public class ScSwitch extends ScToggleButton {
 
     private int mCurrentLeftPosition = Integer.MIN_VALUE;
 
+    private ThumbAnimation mThumbAnimation = null;
+    private TimeInterpolator mInterpolator = ScSwitch.INTERPOLATOR;
+
+    // Drag
+    private VelocityTracker mVelocityTracker = null;
+    private boolean mDragging = false;
+    private float mDragStartX = 0;
+    private int mDragStartPosition = 0;
+    private int mTouchSlop = 0;
+    private int mMinFlingVelocity = 0;
+
     private Paint mBackgroundPaint = null;
-    private Bitmap mHalfBitmap = null;
-    private Canvas mHalfCanvas = null;
+    private RectF mBackgroundArea = null;
+
+    // Thumb cache
+    private Bitmap mThumbOnBitmap = null;
+    private Bitmap mThumbOffBitmap = null;
+    private Canvas mThumbCanvas = null;
+    private boolean mThumbOnDirty = true;
+    private boolean mThumbOffDirty = true;
+    private int mThumbPaddingHash = 0;
 
 
     // ***************************************************************************************
@@ -66,6 +107,53 @@ public class ScSwitch extends ScToggleButton {
     }
 
 
+    // ***************************************************************************************
+    // Classes
+
+    /**
+     * Move the thumb on every frame of the shared frame clock.
+     * The elapsed time start from the first received frame.
+     */
+    private class ThumbAnimation implements ScFrameClock.OnFrameListener {
+
+        private int mStart = 0;
+        private int mEnd = 0;
+        private long mDuration = 0;
+        private long mStartTime = -1;
+
+        /**
+         * Set the animation range
+         */
+        void set(int start, int end, long duration) {
+            this.mStart = start;
+            this.mEnd = end;
+            this.mDuration = duration;
+            this.mStartTime = -1;
+        }
+
+        @Override
+        public boolean onFrame(long frameTimeNanos) {
+            // Fix the start time
+            if (this.mStartTime < 0)
+                this.mStartTime = frameTimeNanos;
+
+            // Find the fraction
+            float fraction = this.mDuration <= 0 ? 1.0f :
+                    (frameTimeNanos - this.mStartTime) / (this.mDuration * 1000000.0f);
+            if (fraction > 1.0f) fraction = 1.0f;
+
+            // Move
+            float interpolated = mInterpolator.getInterpolation(fraction);
+            mCurrentLeftPosition = this.mStart + Math.round((this.mEnd - this.mStart) * interpolated);
+            invalidate();
+
+            // Continue until the end
+            return fraction < 1.0f;
+        }
+
+    }
+
+
     // ***************************************************************************************
     // Privates methods
 
@@ -82,46 +170,239 @@ public class ScSwitch extends ScToggleButton {
         //--------------------------------------------------
         // ATTRIBUTES
 
-        // Get the attributes list
-        final TypedArray attrArray = context
-                .obtainStyledAttributes(attrs, R.styleable.ScButtons, defStyle, 0);
+        // Get the same attributes snapshot read by the super class
+        final ScAttributes attributes = this.getStyledAttributes();
 
-        this.mFontSize = attrArray.getDimension(
+        this.mFontSize = attributes.getDimension(
                 R.styleable.ScButtons_fontSize, this.dipToPixel(ScSwitch.FONT_SIZE));
+        this.mMaxFontSize = attributes.getDimension(
+                R.styleable.ScButtons_maxFontSize, this.mFontSize);
 
-        this.mBackgroundColor = attrArray.getColor(
-                R.styleable.ScButtons_backgroundColor, Color.parseColor("#803F51B5"));
+        this.mBackgroundColor = attributes.getColor(
+                R.styleable.ScButtons_backgroundColor, ScSwitch.BACKGROUND_COLOR);
 
-        this.mShowLed = attrArray.getBoolean(
-                R.styleable.ScButtons_showLed, false);
+        // Use the setter so the layer type will be updated too
+        this.setShowLed(attributes.getBoolean(
+                R.styleable.ScButtons_showLed, false));
 
-        int fillMode = attrArray.getInt(
+        int fillMode = attributes.getInt(
                 R.styleable.ScButtons_filling, FillMode.ALWAYS.ordinal());
         this.mFilling = FillMode.values()[fillMode];
 
-        // Recycle
-        attrArray.recycle();
+        int renderMode = attributes.getInt(
+                R.styleable.ScButtons_renderMode, RenderMode.BITMAP.ordinal());
+        this.mRenderMode = RenderMode.values()[renderMode];
+
+        this.mAnimationDuration = attributes.getInt(
+                R.styleable.ScButtons_animationDuration, (int) ScSwitch.ANIMATION_DURATION);
+
+        // The painter will be created on the first draw
+    }
+
+
+    /**
+     * Release the cached thumbs bitmaps
+     */
+    private void releaseThumbs() {
+        if (this.mThumbOnBitmap != null)
+            this.mThumbOnBitmap.recycle();
+        if (this.mThumbOffBitmap != null)
+            this.mThumbOffBitmap.recycle();
+
+        this.mThumbOnBitmap = null;
+        this.mThumbOffBitmap = null;
+        this.invalidateThumbs();
+    }
+
+    /**
+     * Mark the cached thumbs to be rendered again on the next draw
+     */
+    private void invalidateThumbs() {
+        this.mThumbOnDirty = true;
+        this.mThumbOffDirty = true;
+    }
+
+    /**
+     * Get back the thumb bitmap for the current state.
+     * The thumb is rendered by the super class only if the cached one is not valid anymore.
+     *
+     * @return the thumb bitmap or null if the component has not dimension
+     */
+    private Bitmap getThumb() {
+        // Check for empty values
+        int width = this.getWidth() / 2;
+        int height = this.getHeight();
+        if (width <= 0 || height <= 0)
+            return null;
+
+        // The padding is used for draw the text so must invalidate when changed
+        int paddingHash = this.getPaddingLeft() + 31 * (this.getPaddingTop() +
+                31 * (this.getPaddingRight() + 31 * this.getPaddingBottom()));
+        if (this.mThumbPaddingHash != paddingHash) {
+            this.mThumbPaddingHash = paddingHash;
+            this.invalidateThumbs();
+        }
+
+        // Find the thumb by the current state
+        boolean selected = this.isSelected();
+        Bitmap thumb = selected ? this.mThumbOnBitmap : this.mThumbOffBitmap;
+        boolean dirty = selected ? this.mThumbOnDirty : this.mThumbOffDirty;
+
+        // Create if needed
+        if (thumb == null) {
+            thumb = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            if (selected)
+                this.mThumbOnBitmap = thumb;
+            else
+                this.mThumbOffBitmap = thumb;
+            dirty = true;
+        }
+
+        // Render the thumb only if needed
+        if (dirty) {
+            if (this.mThumbCanvas == null)
+                this.mThumbCanvas = new Canvas();
+
+            this.mThumbCanvas.setBitmap(thumb);
+            this.mThumbCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            this.drawContent(this.mThumbCanvas, width, height);
+            this.mThumbCanvas.setBitmap(null);
+
+            if (selected)
+                this.mThumbOnDirty = false;
+            else
+                this.mThumbOffDirty = false;
+        }
+
+        // Return
+        return thumb;
+    }
 
-        //--------------------------------------------------
-        // INIT
 
-        // Painter
-        this.mBackgroundPaint = new Paint();
-        this.mBackgroundPaint.setAntiAlias(true);
-        this.mBackgroundPaint.setDither(true);
-        this.mBackgroundPaint.setStyle(Paint.Style.FILL);
+    /**
+     * Move the thumb on the position of the current state.
+     * If an animation is already running it will be retargeted starting from the current
+     * thumb position using the same animator.
+     */
+    private void moveThumb() {
+        // Check for animate
+        int width = this.getWidth();
+        if (!this.mAnimate || width == 0 || this.getWindowToken() == null ||
+                this.mCurrentLeftPosition == Integer.MIN_VALUE) {
+            // Else force the draw method to calculate the final the position
+            this.stopThumb();
+            this.mCurrentLeftPosition = Integer.MIN_VALUE;
+            this.invalidate();
+            return;
+        }
+
+        // Set the range
+        int start = this.mCurrentLeftPosition;
+        int end = this.isSelected() ? width / 2 : 0;
+        if (start == end) {
+            this.stopThumb();
+            return;
+        }
+
+        // Create the animation only once
+        if (this.mThumbAnimation == null)
+            this.mThumbAnimation = new ThumbAnimation();
+
+        // The duration is proportional to the distance to cover so an interrupted animation
+        // will move at the same speed.
+        long duration = this.mAnimationDuration * Math.abs(end - start) / Math.max(1, width / 2);
+
+        // Start on the shared clock
+        this.mThumbAnimation.set(start, end, duration);
+        ScFrameClock.getInstance().register(this.mThumbAnimation);
+    }
+
+    /**
+     * Start to drag the thumb.
+     * The gesture detector of the super class will receive a cancel event so the tap will
+     * not be fired.
+     *
+     * @param e the current event
+     */
+    private void startDrag(MotionEvent e) {
+        // Holder
+        this.mDragging = true;
+        this.mDragStartX = e.getX();
+        this.mDragStartPosition = this.mCurrentLeftPosition;
+        this.stopThumb();
+
+        // The parent must not steal the gesture
+        ViewParent parent = this.getParent();
+        if (parent != null)
+            parent.requestDisallowInterceptTouchEvent(true);
+
+        // Cancel the tap using the same event to avoid allocations
+        int action = e.getAction();
+        e.setAction(MotionEvent.ACTION_CANCEL);
+        super.onTouchEvent(e);
+        e.setAction(action);
+    }
+
+    /**
+     * Move the thumb following the finger
+     *
+     * @param e the current event
+     */
+    private void dragThumb(MotionEvent e) {
+        // Limit the position inside the component
+        int max = this.getWidth() / 2;
+        int position = this.mDragStartPosition + Math.round(e.getX() - this.mDragStartX);
+        if (position < 0) position = 0;
+        if (position > max) position = max;
+
+        // Redraw only if really moved
+        if (this.mCurrentLeftPosition != position) {
+            this.mCurrentLeftPosition = position;
+            this.invalidate();
+        }
     }
 
+    /**
+     * Settle the thumb at the end of the dragging.
+     * If the finger was flinging the velocity direction will choice the state, else will be
+     * chosen by the nearest side.
+     *
+     * @param fling true if must consider the velocity
+     */
+    private void settleDrag(boolean fling) {
+        // Holder
+        this.mDragging = false;
+        boolean selected = this.mCurrentLeftPosition * 2 > this.getWidth() / 2;
+
+        // Check the velocity
+        if (fling && this.mVelocityTracker != null) {
+            this.mVelocityTracker.computeCurrentVelocity(1000);
+            float velocity = this.mVelocityTracker.getXVelocity();
+            if (Math.abs(velocity) > this.mMinFlingVelocity)
+                selected = velocity > 0;
+        }
+
+        // Apply the state, the thumb will move from the current position to the final one
+        // even if the state not change.
+        this.setSelected(selected);
+    }
 
     /**
-     * Init a bitmap and canvas by half with of the original size
+     * Release the velocity tracker
      */
-    private void initHalfCanvas(int width, int height) {
-        if (this.mHalfBitmap != null)
-            this.mHalfBitmap.recycle();
+    private void releaseVelocityTracker() {
+        if (this.mVelocityTracker != null) {
+            this.mVelocityTracker.recycle();
+            this.mVelocityTracker = null;
+        }
+    }
 
-        this.mHalfBitmap = Bitmap.createBitmap(width / 2, height, Bitmap.Config.ARGB_8888);
-        this.mHalfCanvas = new Canvas(this.mHalfBitmap);
+    /**
+     * Stop the thumb animation if running
+     */
+    private void stopThumb() {
+        if (this.mThumbAnimation != null)
+            ScFrameClock.getInstance().unregister(this.mThumbAnimation);
     }
 
 
@@ -134,22 +415,118 @@ public class ScSwitch extends ScToggleButton {
      * @param canvas where to draw
      */
     private void drawSolidBackground(Canvas canvas) {
+        // Create the painter if needed
+        if (this.mBackgroundPaint == null) {
+            this.mBackgroundPaint = new Paint();
+            this.mBackgroundPaint.setAntiAlias(true);
+            this.mBackgroundPaint.setDither(true);
+            this.mBackgroundPaint.setStyle(Paint.Style.FILL);
+            this.mBackgroundArea = new RectF();
+        }
+
         // Set the painter
         this.mBackgroundPaint.setColor(this.mBackgroundColor);
 
         // Draw the background
-        RectF area = new RectF(0, 0, canvas.getWidth(), canvas.getHeight());
+        this.mBackgroundArea.set(0, 0, this.getWidth(), this.getHeight());
         canvas.drawRoundRect(
-                area,
+                this.mBackgroundArea,
                 this.mCornerRadius, this.mCornerRadius,
                 this.mBackgroundPaint
         );
     }
 
 
+    /**
+     * Draw the thumb directly on the canvas translating and clipping it on the current
+     * position.
+     *
+     * @param canvas where to draw
+     */
+    private void drawThumb(Canvas canvas) {
+        // Check for empty values
+        int width = this.getWidth() / 2;
+        int height = this.getHeight();
+        if (width <= 0 || height <= 0)
+            return;
+
+        // Draw the super content inside the thumb area
+        canvas.save();
+        canvas.translate(this.mCurrentLeftPosition, 0);
+        canvas.clipRect(0, 0, width, height);
+        this.drawContent(canvas, width, height);
+        canvas.restore();
+    }
+
+
     // **************************************************************************************
     // Override
 
+    /**
+     * Manage the thumb dragging and leave the single tap to the super class
+     *
+     * @param e the event
+     * @return always true
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent e) {
+        // Check for disabled
+        if (!this.isEnabled())
+            return super.onTouchEvent(e);
+
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Init the drag holders
+                if (this.mTouchSlop == 0) {
+                    ViewConfiguration configuration = ViewConfiguration.get(this.getContext());
+                    this.mTouchSlop = configuration.getScaledTouchSlop();
+                    this.mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+                }
+
+                this.mDragging = false;
+                this.mDragStartX = e.getX();
+                this.releaseVelocityTracker();
+                this.mVelocityTracker = VelocityTracker.obtain();
+                this.mVelocityTracker.addMovement(e);
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                // Track
+                if (this.mVelocityTracker != null)
+                    this.mVelocityTracker.addMovement(e);
+
+                // Check if start to drag
+                if (!this.mDragging && this.mCurrentLeftPosition != Integer.MIN_VALUE &&
+                        Math.abs(e.getX() - this.mDragStartX) > this.mTouchSlop)
+                    this.startDrag(e);
+
+                // Follow the finger
+                if (this.mDragging) {
+                    this.dragThumb(e);
+                    return true;
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                // Settle the thumb
+                if (this.mDragging) {
+                    if (this.mVelocityTracker != null)
+                        this.mVelocityTracker.addMovement(e);
+
+                    this.settleDrag(e.getActionMasked() == MotionEvent.ACTION_UP);
+                    this.releaseVelocityTracker();
+                    return true;
+                }
+
+                this.releaseVelocityTracker();
+                break;
+        }
+
+        // Single tap
+        return super.onTouchEvent(e);
+    }
+
     /**
      * Draw the component by the settings
      *
@@ -161,20 +538,22 @@ public class ScSwitch extends ScToggleButton {
         if (this.mCurrentLeftPosition == Integer.MIN_VALUE)
             this.mCurrentLeftPosition = this.isSelected() ? this.getWidth() / 2 : 0;
 
+        // Trace
+        boolean traced = ScTrace.begin("ScSwitch.onDraw", this, this.getGroup());
+
         // Draw the background and the half canvas in the right position
         this.drawSolidBackground(canvas);
 
-        // Check for empty values
-        if (this.mHalfBitmap == null ||
-                this.mHalfBitmap.getWidth() == 0 || this.mHalfBitmap.getHeight() == 0)
-            return;
-
-        // Draw the super on this canvas
-        this.mHalfCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-        super.onDraw(this.mHalfCanvas);
+        // Draw the thumb on the correct alignment
+        if (this.mRenderMode == RenderMode.DIRECT)
+            this.drawThumb(canvas);
+        else {
+            Bitmap thumb = this.getThumb();
+            if (thumb != null)
+                canvas.drawBitmap(thumb, this.mCurrentLeftPosition, 0, null);
+        }
 
-        // Draw the button on the correct alignment
-        canvas.drawBitmap(this.mHalfBitmap, this.mCurrentLeftPosition, 0, null);
+        ScTrace.end(traced);
     }
 
     /**
@@ -191,14 +570,85 @@ public class ScSwitch extends ScToggleButton {
 
         // If have some dimension to wrap will use the path boundaries for have the right
         // dimension summed to the global padding.
-        if (this.getLayoutParams().width == ViewGroup.LayoutParams.WRAP_CONTENT)
+        // The layout params not exists when measured outside a layout.
+        ViewGroup.LayoutParams params = this.getLayoutParams();
+        if (params != null && params.width == ViewGroup.LayoutParams.WRAP_CONTENT)
             width = Math.round(this.dipToPixel(ScSwitch.MIN_WIDTH));
-        if (this.getLayoutParams().height == ViewGroup.LayoutParams.WRAP_CONTENT)
+        if (params != null && params.height == ViewGroup.LayoutParams.WRAP_CONTENT)
             height = Math.round(this.dipToPixel(ScSwitch.MIN_HEIGHT));
 
         // Set the calculated dimensions
         this.setMeasuredDimension(width, height);
-        this.initHalfCanvas(width, height);
+    }
+
+    /**
+     * Release the cached thumbs only when the dimension really changed
+     *
+     * @param width     the new width
+     * @param height    the new height
+     * @param oldWidth  the old width
+     * @param oldHeight the old height
+     */
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        this.releaseThumbs();
+
+        // The thumb position depend by the width
+        this.stopThumb();
+        this.mCurrentLeftPosition = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Release the cached thumbs when detached so the memory will scale with the number of
+     * the attached switches only.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        this.releaseThumbs();
+
+        // Jump to the final position
+        this.stopThumb();
+        this.releaseVelocityTracker();
+        this.mDragging = false;
+        this.mCurrentLeftPosition = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Invalidate the cached thumbs when the style changed
+     */
+    @Override
+    protected void onStyleChanged() {
+        this.invalidateThumbs();
+        super.onStyleChanged();
+    }
+
+    /**
+     * Apply the palette colors, background included, before redraw the component once
+     *
+     * @param palette the palette
+     */
+    @Override
+    void applyPalette(ScPalette palette) {
+        palette.applyColors(this);
+        this.onStyleChanged();
+    }
+
+    /**
+     * Apply the selection status quietly and place the thumb on the final position
+     * without animation.
+     *
+     * @param selected the status
+     */
+    @Override
+    protected void applySelectedQuietly(boolean selected) {
+        super.applySelectedQuietly(selected);
+
+        // Force the draw method to calculate the final position
+        this.stopThumb();
+        this.mCurrentLeftPosition = Integer.MIN_VALUE;
+        this.invalidate();
     }
 
     /**
@@ -211,32 +661,8 @@ public class ScSwitch extends ScToggleButton {
         // Super
         super.setSelected(selected);
 
-        // Check for animate
-        int width = this.getWidth();
-        if (this.mAnimate && width != 0) {
-            // Set the range
-            int start = this.mCurrentLeftPosition;
-            int end = this.isSelected() ? width / 2 : 0;
-
-            // Animator
-            ValueAnimator animator = ValueAnimator.ofInt(start, end);
-            animator.setDuration(ScSwitch.ANIMATION_DURATION);
-            animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                    mCurrentLeftPosition = (int) valueAnimator.getAnimatedValue();
-                    invalidate();
-                }
-            });
-
-            // Start
-            animator.start();
-
-        } else {
-            // Else force the draw method to calculate the final the position
-            this.mCurrentLeftPosition = Integer.MIN_VALUE;
-            this.invalidate();
-        }
+        // Move the thumb
+        this.moveThumb();
     }
 
 
@@ -259,6 +685,8 @@ public class ScSwitch extends ScToggleButton {
         state.putParcelable("PARENT", superState);
         state.putInt("mBackgroundColor", this.mBackgroundColor);
         state.putBoolean("mAnimate", this.mAnimate);
+        state.putInt("mRenderMode", this.mRenderMode.ordinal());
+        state.putLong("mAnimationDuration", this.mAnimationDuration);
 
         // Return the new state
         return state;
@@ -281,6 +709,8 @@ public class ScSwitch extends ScToggleButton {
         // Now can restore all the saved variables values
         this.mBackgroundColor = savedState.getInt("mBackgroundColor");
         this.mAnimate = savedState.getBoolean("mAnimate");
+        this.mRenderMode = RenderMode.values()[savedState.getInt("mRenderMode")];
+        this.mAnimationDuration = savedState.getLong("mAnimationDuration");
     }
 
 
@@ -334,4 +764,74 @@ public class ScSwitch extends ScToggleButton {
         }
     }
 
+
+    /**
+     * Get the thumb rendering mode
+     *
+     * @return the mode
+     */
+    @SuppressWarnings("unused")
+    public RenderMode getRenderMode() {
+        return this.mRenderMode;
+    }
+
+    /**
+     * Set the thumb rendering mode.
+     * The DIRECT mode not hold any bitmap but draw all the thumb content on every frame.
+     *
+     * @param value the mode
+     */
+    @SuppressWarnings("unused")
+    public void setRenderMode(RenderMode value) {
+        if (this.mRenderMode != value) {
+            this.mRenderMode = value;
+            this.releaseThumbs();
+            this.invalidate();
+        }
+    }
+
+
+    /**
+     * Get the thumb animation duration
+     *
+     * @return the duration in milliseconds
+     */
+    @SuppressWarnings("unused")
+    public long getAnimationDuration() {
+        return this.mAnimationDuration;
+    }
+
+    /**
+     * Set the thumb animation duration.
+     * This is the time to cover all the path, an interrupted animation will take less.
+     *
+     * @param value the duration in milliseconds
+     */
+    @SuppressWarnings("unused")
+    public void setAnimationDuration(long value) {
+        if (value < 0) value = 0;
+        this.mAnimationDuration = value;
+    }
+
+
+    /**
+     * Get the thumb animation interpolator
+     *
+     * @return the interpolator
+     */
+    @SuppressWarnings("unused")
+    public TimeInterpolator getInterpolator() {
+        return this.mInterpolator;
+    }
+
+    /**
+     * Set the thumb animation interpolator
+     *
+     * @param value the interpolator, null for the default
+     */
+    @SuppressWarnings("unused")
+    public void setInterpolator(TimeInterpolator value) {
+        this.mInterpolator = value != null ? value : ScSwitch.INTERPOLATOR;
+    }
+
 }
@@ -1,21 +1,24 @@
 package com.sccomponents.buttons;
 
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.text.Layout;
 import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
+import android.util.LruCache;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
@@ -23,7 +26,11 @@ import android.view.ViewGroup;
 import android.view.WindowManager;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Create a custom toggle button
@@ -40,10 +47,27 @@ public class ScToggleButton extends View {
     private static final int CORNER_RADIUS = 5;
     private static final int FONT_SIZE = 14;
     private static final int STROKE_SIZE = 2;
-
-    private static List<ScToggleButton> mGlobalButtons = null;
+    private static final int MIN_FONT_SIZE = 8;
+    private static final int FONT_SIZE_GRANULARITY = 1;
+    private static final int FITTED_SIZES_CACHE = 64;
+
+    private static final int OFF_COLOR = 0xFF3F51B5;
+    private static final int ON_COLOR = 0xFF45AA46;
+    private static final int LED_GLOW_RADIUS = 5;
+
+    // Created eagerly as the components can be created on the background threads too
+    private static final List<ScToggleButton> mGlobalButtons = new ArrayList<>();
+    private static final BlurMaskFilter mHighLightEffect =
+            new BlurMaskFilter(ScToggleButton.LED_GLOW_RADIUS, BlurMaskFilter.Blur.SOLID);
+    private static final LruCache<String, Float> mFittedSizes =
+            new LruCache<>(ScToggleButton.FITTED_SIZES_CACHE);
     private static List<OnGroupChangeListener> mGroupChangeListener = null;
 
+    private static Set<String> mPendingGroups = null;
+    private static Handler mReconcileHandler = null;
+    private static Runnable mReconcileRunnable = null;
+    private static boolean mReconcilePosted = false;
+
 
     // ***************************************************************************************
     // Enumerators
@@ -73,13 +97,18 @@ public class ScToggleButton extends View {
     // ***************************************************************************************
     // Private and protected attributes
 
-    protected float mFontSize = this.dipToPixel(ScToggleButton.FONT_SIZE);
+    protected float mFontSize = 0;
     protected String mFontFamily = null;
     protected boolean mFontIsBold = true;
     protected boolean mFontIsItalic = false;
 
+    protected boolean mAutoSize = false;
+    protected float mMinFontSize = 0;
+    protected float mMaxFontSize = 0;
+    protected float mFontSizeGranularity = 0;
+
     protected float mStrokeSize = ScToggleButton.STROKE_SIZE;
-    protected float mCornerRadius = this.dipToPixel(ScToggleButton.CORNER_RADIUS);
+    protected float mCornerRadius = 0;
     protected FillMode mFilling = FillMode.NEVER;
 
     protected String mText = null;
@@ -90,8 +119,8 @@ public class ScToggleButton extends View {
     protected boolean mAllCaps = true;
     protected boolean mShowLed = true;
 
-    protected int mOffColor = Color.parseColor("#3F51B5");
-    protected int mOnColor = Color.parseColor("#45AA46");
+    protected int mOffColor = ScToggleButton.OFF_COLOR;
+    protected int mOnColor = ScToggleButton.ON_COLOR;
     protected int mLedOnColor = Integer.MAX_VALUE;
     protected int mLedOffColor = Integer.MAX_VALUE;
     protected int mTextOnColor = Integer.MAX_VALUE;
@@ -101,19 +130,48 @@ public class ScToggleButton extends View {
     protected boolean mOnlyOneSelected = true;
     protected boolean mSelected = false;
 
+    protected boolean mPressFeedback = true;
+    protected int mRippleColor = Integer.MAX_VALUE;
+
 
     // ***************************************************************************************
     // Privates variable
 
     private GestureDetector mDetector = null;
     private OnChangeListener mChangeListener = null;
+    private ScRipple mRipple = null;
+    private ScAttributes mAttributes = null;
 
     // Painters
     private Paint mStrokePaint = null;
     private Paint mHighlightPaint = null;
-    private BlurMaskFilter mHighLightEffect = null;
     private TextPaint mTextPaint = null;
 
+    // Reused drawing areas
+    private RectF mBorderArea = null;
+    private Rect mTextArea = null;
+
+    // Led glow cache
+    private Bitmap mLedGlow = null;
+    private int mLedGlowLength = 0;
+    private float mLedGlowStroke = 0;
+
+    // Text
+    private Typeface mTypeface = null;
+    private boolean mFittedDirty = true;
+    private float mFittedFontSize = 0;
+    private int mFittedWidth = 0;
+    private int mFittedHeight = 0;
+
+    // Text layout cache
+    private StaticLayout mTextLayout = null;
+    private String mTextLayoutSource = null;
+    private boolean mTextLayoutCaps = false;
+    private int mTextLayoutWidth = 0;
+    private float mTextLayoutSize = 0;
+    private Typeface mTextLayoutTypeface = null;
+    private Layout.Alignment mTextLayoutAlign = null;
+
 
     // ***************************************************************************************
     // Constructors
@@ -166,80 +224,104 @@ public class ScToggleButton extends View {
         //--------------------------------------------------
         // ATTRIBUTES
 
-        // Get the attributes list
-        final TypedArray attrArray = context
-                .obtainStyledAttributes(attrs, R.styleable.ScButtons, defStyle, 0);
+        // Get the attributes snapshot, the inherited classes will read from the same
+        final ScAttributes attributes = ScAttributes.obtain(context, attrs, defStyle);
+        this.mAttributes = attributes;
 
-        this.mSelected = attrArray.getBoolean(
+        this.mSelected = attributes.getBoolean(
                 R.styleable.ScButtons_selected, false);
 
-        this.mFontSize = attrArray.getDimension(
+        this.mFontSize = attributes.getDimension(
                 R.styleable.ScButtons_fontSize,
                 this.dipToPixel(ScToggleButton.FONT_SIZE));
-        this.mFontFamily = attrArray.getString(
+        this.mFontFamily = attributes.getString(
                 R.styleable.ScButtons_fontFamily);
-        this.mFontIsBold = attrArray.getBoolean(
-
+        this.mFontIsBold = attributes.getBoolean(
                 R.styleable.ScButtons_bold, true);
-        this.mFontIsItalic = attrArray.getBoolean(
+        this.mFontIsItalic = attributes.getBoolean(
                 R.styleable.ScButtons_italic, false);
-        this.mAllCaps = attrArray.getBoolean(
+        this.mAllCaps = attributes.getBoolean(
                 R.styleable.ScButtons_allCaps, true);
 
-        this.mCornerRadius = attrArray.getDimension(
+        this.mAutoSize = attributes.getBoolean(
+                R.styleable.ScButtons_autoSize, false);
+        this.mMinFontSize = attributes.getDimension(
+                R.styleable.ScButtons_minFontSize,
+                this.dipToPixel(ScToggleButton.MIN_FONT_SIZE));
+        this.mMaxFontSize = attributes.getDimension(
+                R.styleable.ScButtons_maxFontSize, this.mFontSize);
+        this.mFontSizeGranularity = attributes.getDimension(
+                R.styleable.ScButtons_fontSizeGranularity,
+                this.dipToPixel(ScToggleButton.FONT_SIZE_GRANULARITY));
+
+        this.mCornerRadius = attributes.getDimension(
                 R.styleable.ScButtons_cornerRadius,
                 this.dipToPixel(ScToggleButton.CORNER_RADIUS));
-        this.mStrokeSize = attrArray.getDimension(
+        this.mStrokeSize = attributes.getDimension(
                 R.styleable.ScButtons_strokeSize,
                 this.dipToPixel(ScToggleButton.STROKE_SIZE));
-        int fillMode = attrArray.getInt(
+        int fillMode = attributes.getInt(
                 R.styleable.ScButtons_filling, FillMode.NEVER.ordinal());
         this.mFilling = FillMode.values()[fillMode];
 
-        this.mText = attrArray.getString(
+        this.mText = attributes.getString(
                 R.styleable.ScButtons_text);
-        this.mTextOn = attrArray.getString(
+        this.mTextOn = attributes.getString(
                 R.styleable.ScButtons_textOn);
-        this.mTextOff = attrArray.getString(
+        this.mTextOff = attributes.getString(
                 R.styleable.ScButtons_textOff);
 
-        this.mTextOnColor = attrArray.getColor(
+        this.mTextOnColor = attributes.getColor(
                 R.styleable.ScButtons_textOnColor, Integer.MAX_VALUE);
-        this.mTextOffColor = attrArray.getColor(
+        this.mTextOffColor = attributes.getColor(
                 R.styleable.ScButtons_textOffColor, Integer.MAX_VALUE);
 
-        int textAlign = attrArray.getInt(
+        int textAlign = attributes.getInt(
                 R.styleable.ScButtons_align, TextAlign.CENTER.ordinal());
         this.mTextAlign = TextAlign.values()[textAlign];
 
-        this.mOffColor = attrArray.getColor(
-                R.styleable.ScButtons_offColor, Color.parseColor("#3F51B5"));
-        this.mOnColor = attrArray.getColor(
-                R.styleable.ScButtons_onColor, Color.parseColor("#45AA46"));
+        this.mOffColor = attributes.getColor(
+                R.styleable.ScButtons_offColor, ScToggleButton.OFF_COLOR);
+        this.mOnColor = attributes.getColor(
+                R.styleable.ScButtons_onColor, ScToggleButton.ON_COLOR);
 
-        this.mLedOnColor = attrArray.getColor(
+        this.mLedOnColor = attributes.getColor(
                 R.styleable.ScButtons_ledOnColor, Integer.MAX_VALUE);
-        this.mLedOffColor = attrArray.getColor(
+        this.mLedOffColor = attributes.getColor(
                 R.styleable.ScButtons_ledOffColor, Integer.MAX_VALUE);
 
-        this.mShowLed = attrArray.getBoolean(
+        this.mShowLed = attributes.getBoolean(
                 R.styleable.ScButtons_showLed, true);
 
-        this.mGroup = attrArray.getString(
+        this.mGroup = attributes.getString(
                 R.styleable.ScButtons_group);
-        this.mOnlyOneSelected = attrArray.getBoolean(
+        this.mOnlyOneSelected = attributes.getBoolean(
                 R.styleable.ScButtons_onlyOneSelected, true);
 
-        // Recycle
-        attrArray.recycle();
+        this.mPressFeedback = attributes.getBoolean(
+                R.styleable.ScButtons_pressFeedback, true);
+        this.mRippleColor = attributes.getColor(
+                R.styleable.ScButtons_rippleColor, Integer.MAX_VALUE);
 
         //--------------------------------------------------
         // INIT
 
-        if (ScToggleButton.mGlobalButtons == null)
-            ScToggleButton.mGlobalButtons = new ArrayList<>();
+        // The gesture detector, the painters and the layer are created only when
+        // really needed.
+        this.mRipple = new ScRipple(this);
+        this.updateRipple();
+
+        this.setClickable(true);
+        this.setSelected(this.mSelected);
+    }
 
-        this.mDetector = new GestureDetector(this.getContext(), new SingleTapConfirm());
+    /**
+     * Create the painters on the first draw.
+     */
+    private void initPainters() {
+        // Check if already done
+        if (this.mStrokePaint != null)
+            return;
 
         this.mStrokePaint = new Paint();
         this.mStrokePaint.setAntiAlias(true);
@@ -250,15 +332,23 @@ public class ScToggleButton extends View {
         this.mHighlightPaint.setDither(true);
         this.mHighlightPaint.setStyle(Paint.Style.STROKE);
 
-        this.mHighLightEffect = new BlurMaskFilter(5, BlurMaskFilter.Blur.SOLID);
-
         this.mTextPaint = new TextPaint();
         this.mTextPaint.setAntiAlias(true);
         this.mTextPaint.setDither(true);
 
-        this.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-        this.setClickable(true);
-        this.setSelected(this.mSelected);
+        this.mBorderArea = new RectF();
+        this.mTextArea = new Rect();
+    }
+
+    /**
+     * Get the gesture detector creating it on the first touch
+     *
+     * @return the detector
+     */
+    private GestureDetector getDetector() {
+        if (this.mDetector == null)
+            this.mDetector = new GestureDetector(this.getContext(), new SingleTapConfirm());
+        return this.mDetector;
     }
 
     /**
@@ -284,10 +374,9 @@ public class ScToggleButton extends View {
      * @param dip the start value in Dip
      * @return the correspondent value in Pixels
      */
-    //
     protected float dipToPixel(float dip) {
         // Get the display metrics
-        DisplayMetrics metrics = this.getDisplayMetrics(this.getContext());
+        DisplayMetrics metrics = this.getResources().getDisplayMetrics();
         // Calc the conversion by the screen density
         return dip * metrics.density;
     }
@@ -303,6 +392,48 @@ public class ScToggleButton extends View {
         return str1 == null ? str2 == null : str1.equals(str2);
     }
 
+    /**
+     * Get the styled attributes snapshot read when the component was created.
+     * The inherited classes must read their attributes from here to avoid to parse the
+     * XML again.
+     *
+     * @return the attributes
+     */
+    ScAttributes getStyledAttributes() {
+        return this.mAttributes;
+    }
+
+    /**
+     * Called when some property that affect the component appearance changed.
+     * The inherited classes can override this method to invalidate their own caches but
+     * must always call the super.
+     */
+    protected void onStyleChanged() {
+        this.updateRipple();
+        this.invalidate();
+    }
+
+    /**
+     * Apply the palette colors updating all the fields before redraw the component once
+     *
+     * @param palette the palette
+     */
+    void applyPalette(ScPalette palette) {
+        palette.applyColors(this);
+        this.onStyleChanged();
+    }
+
+    /**
+     * Apply the current settings to the press feedback ripple.
+     * If the ripple color is not defined will be used the ON color.
+     */
+    private void updateRipple() {
+        this.mRipple.setEnabled(this.mPressFeedback);
+        this.mRipple.setCornerRadius(this.mCornerRadius);
+        this.mRipple.setColor(this.mRippleColor == Integer.MAX_VALUE ?
+                ScRipple.getDefaultColor(this.mOnColor) : this.mRippleColor);
+    }
+
     /**
      * Check if the component background if filled
      */
@@ -391,6 +522,15 @@ public class ScToggleButton extends View {
         return list;
     }
 
+    /**
+     * Give back a copy of the global buttons list
+     *
+     * @return a list of buttons
+     */
+    static List<ScToggleButton> getButtons() {
+        return new ArrayList<>(ScToggleButton.mGlobalButtons);
+    }
+
     /**
      * Check if the button belongs to a group
      *
@@ -449,6 +589,182 @@ public class ScToggleButton extends View {
         return ScToggleButton.getGroupSelection(group).length > 0;
     }
 
+    /**
+     * Apply the selection status without check the group constraints and without call
+     * any listener. The inherited classes can override this method to update their state
+     * immediately.
+     *
+     * @param selected the status
+     */
+    protected void applySelectedQuietly(boolean selected) {
+        if (this.mSelected != selected) {
+            this.mSelected = selected;
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Mark the group as restored so its constraints will be reconciled only once after
+     * the whole hierarchy is attached.
+     * The reconcile is posted by the first button attached after the restore, if the
+     * restored button is already attached it is posted immediately.
+     *
+     * @param group    the group name
+     * @param attached true if the restored button is already attached
+     */
+    private static void addPendingGroup(String group, boolean attached) {
+        if (ScToggleButton.mPendingGroups == null)
+            ScToggleButton.mPendingGroups = new HashSet<>();
+        ScToggleButton.mPendingGroups.add(group);
+
+        if (attached)
+            ScToggleButton.postGroupsReconcile();
+    }
+
+    /**
+     * Check if the group is waiting to be reconciled
+     *
+     * @param group the group name
+     * @return true if pending
+     */
+    private static boolean isPendingGroup(String group) {
+        return ScToggleButton.mPendingGroups != null &&
+                ScToggleButton.mPendingGroups.contains(group);
+    }
+
+    /**
+     * Post the reconcile of the pending groups on the main thread.
+     * When posted by an attaching button the reconcile will run after the current traversal
+     * so when all the restored hierarchy is attached.
+     */
+    private static void postGroupsReconcile() {
+        // Check if already posted
+        if (ScToggleButton.mReconcilePosted)
+            return;
+        ScToggleButton.mReconcilePosted = true;
+
+        // Create only once
+        if (ScToggleButton.mReconcileHandler == null) {
+            ScToggleButton.mReconcileHandler = new Handler(Looper.getMainLooper());
+            ScToggleButton.mReconcileRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    ScToggleButton.mReconcilePosted = false;
+                    ScToggleButton.reconcileGroups();
+                }
+            };
+        }
+
+        // Post
+        ScToggleButton.mReconcileHandler.post(ScToggleButton.mReconcileRunnable);
+    }
+
+    /**
+     * Reconcile all the pending groups that have at least one attached button.
+     * All the pending groups are cleared so the groups without attached buttons will not
+     * hold back the group management of the buttons attached later.
+     */
+    private static void reconcileGroups() {
+        // Check for empty values
+        if (ScToggleButton.mPendingGroups == null || ScToggleButton.mPendingGroups.isEmpty())
+            return;
+
+        // Cycle a copy as the listeners could restore other groups
+        String[] groups = ScToggleButton.mPendingGroups
+                .toArray(new String[ScToggleButton.mPendingGroups.size()]);
+        ScToggleButton.mPendingGroups.clear();
+        for (String group : groups) {
+            List<ScToggleButton> list = ScToggleButton.getButtonsGroup(group);
+            if (list.size() > 0)
+                ScToggleButton.reconcileGroup(list, null);
+        }
+    }
+
+    /**
+     * Give back all the attached buttons divided by group name with a single pass on the
+     * global buttons list. The buttons order inside the groups is the same of the
+     * {@link #getButtonsGroup(String)} method.
+     *
+     * @return the groups map
+     */
+    static Map<String, List<ScToggleButton>> getGroupsMap() {
+        Map<String, List<ScToggleButton>> map = new LinkedHashMap<>();
+        for (ScToggleButton button : ScToggleButton.mGlobalButtons) {
+            // Check for empty values
+            if (!button.hasGroup())
+                continue;
+
+            // Add to the group list
+            List<ScToggleButton> list = map.get(button.getGroup());
+            if (list == null) {
+                list = new ArrayList<>();
+                map.put(button.getGroup(), list);
+            }
+            list.add(button);
+        }
+        return map;
+    }
+
+    /**
+     * Apply a selection and the group constraints at once to a group.
+     * The selection is a bitset of the buttons position inside the group, if null the
+     * current buttons status is used.
+     * The first selected button is kept and the others are deselected, if no one is selected
+     * the first button will be. Only the buttons really changed call their listener and the
+     * group listeners are called once.
+     *
+     * @param list      the group buttons
+     * @param selection the bitset or null
+     */
+    static void reconcileGroup(List<ScToggleButton> list, byte[] selection) {
+        // Trace
+        ScToggleButton first = list.get(0);
+        boolean traced = ScTrace.begin(
+                "ScToggleButton.reconcileGroup", first, first.getGroup());
+
+        // Find the wanted status and the button to keep selected
+        boolean[] wanted = new boolean[list.size()];
+        ScToggleButton keep = null;
+        boolean onlyOne = false;
+        for (int index = 0; index < list.size(); index++) {
+            ScToggleButton button = list.get(index);
+            wanted[index] = selection == null ?
+                    button.isSelected() :
+                    index / 8 < selection.length && (selection[index / 8] & (1 << (index % 8))) != 0;
+
+            onlyOne |= button.mOnlyOneSelected;
+            if (keep == null && wanted[index])
+                keep = button;
+        }
+
+        // Apply the constraints
+        if (onlyOne) {
+            if (keep == null)
+                keep = first;
+            for (int index = 0; index < list.size(); index++)
+                wanted[index] = list.get(index) == keep;
+        }
+
+        // Apply quietly
+        List<ScToggleButton> changed = new ArrayList<>();
+        for (int index = 0; index < list.size(); index++) {
+            ScToggleButton button = list.get(index);
+            if (button.isSelected() != wanted[index]) {
+                button.applySelectedQuietly(wanted[index]);
+                changed.add(button);
+            }
+        }
+
+        // Events
+        for (ScToggleButton button : changed)
+            if (button.mChangeListener != null)
+                button.mChangeListener.onChanged(button, button.isSelected());
+        if (changed.size() > 0)
+            first.performGroupOnChange(keep != null ? keep : changed.get(0));
+
+        ScTrace.end(traced);
+    }
+
     /**
      * Update the group status selection.
      */
@@ -457,6 +773,10 @@ public class ScToggleButton extends View {
         if (!this.mOnlyOneSelected)
             return;
 
+        // Trace
+        boolean traced = ScTrace.begin(
+                "ScToggleButton.manageGroupSelection", this, this.getGroup());
+
         // If status is true reset all other buttons
         if (this.isSelected())
             ScToggleButton.resetGroup(this.getGroup(), this);
@@ -469,6 +789,8 @@ public class ScToggleButton extends View {
             if (groups.size() > 0)
                 groups.get(0).setSelected(true);
         }
+
+        ScTrace.end(traced);
     }
 
 
@@ -479,17 +801,20 @@ public class ScToggleButton extends View {
      * Draw the border
      *
      * @param canvas where to draw
+     * @param width  the drawing width
+     * @param height the drawing height
      */
-    private void drawBorder(Canvas canvas) {
+    private void drawBorder(Canvas canvas, int width, int height) {
         // Check for empty values
         if (this.mStrokeSize > 0) {
             // Create the drawing area
             float middle = this.mStrokeSize / 2;
-            RectF area = new RectF(
+            RectF area = this.mBorderArea;
+            area.set(
                     0 + middle,
                     0 + middle,
-                    canvas.getWidth() - middle,
-                    canvas.getHeight() - middle);
+                    width - middle,
+                    height - middle);
 
             // Set the painter
             this.mStrokePaint.setColor(this.choiceBorderColor());
@@ -510,29 +835,85 @@ public class ScToggleButton extends View {
      * Draw the led
      *
      * @param canvas where to draw
+     * @param width  the drawing width
+     * @param height the drawing height
      */
-    private void drawLed(Canvas canvas) {
+    private void drawLed(Canvas canvas, int width, int height) {
         // Check visibility
         if (this.mShowLed) {
             // Setting the painter
+            float stroke = this.mStrokeSize * 2;
             this.mHighlightPaint.setColor(this.choiceLedColor());
-            this.mHighlightPaint.setStrokeWidth(this.mStrokeSize * 2);
-            this.mHighlightPaint.setMaskFilter(this.isSelected() ? this.mHighLightEffect : null);
+            this.mHighlightPaint.setStrokeWidth(stroke);
 
-            // Draw
-            int left = canvas.getWidth() / 4;
+            // Holders
+            int left = width / 4;
             int right = left * 3;
-            int bottom = canvas.getHeight() - (int) this.mStrokeSize * 4;
-            canvas.drawLine(left, bottom, right, bottom, this.mHighlightPaint);
+            int bottom = height - (int) this.mStrokeSize * 4;
+
+            // The glowing led is drawn by the cached blurred shape tinted by the painter color
+            Bitmap glow = this.isSelected() ? this.getLedGlow(right - left, stroke) : null;
+            if (glow != null) {
+                int margin = ScToggleButton.LED_GLOW_RADIUS * 2;
+                canvas.drawBitmap(glow, left - margin, bottom - stroke / 2 - margin,
+                        this.mHighlightPaint);
+            } else
+                canvas.drawLine(left, bottom, right, bottom, this.mHighlightPaint);
         }
     }
 
+    /**
+     * Get the blurred led shape rendering it only when the size changed.
+     * The blur mask filter is not supported by the hardware acceleration so the shape is
+     * rendered once by a software canvas inside an alpha bitmap. Drawing the alpha bitmap
+     * use the painter color, so the same bitmap is good for every led color and the
+     * component never need a software layer.
+     *
+     * @param length the led length
+     * @param stroke the led stroke width
+     * @return the alpha bitmap or null if the led is empty
+     */
+    private Bitmap getLedGlow(int length, float stroke) {
+        // Check for empty values
+        if (length <= 0 || stroke <= 0)
+            return null;
+
+        // Check if already rendered
+        if (this.mLedGlow != null &&
+                this.mLedGlowLength == length && this.mLedGlowStroke == stroke)
+            return this.mLedGlow;
+
+        // Leave room around the shape for the blur
+        int margin = ScToggleButton.LED_GLOW_RADIUS * 2;
+        Bitmap bitmap = Bitmap.createBitmap(
+                length + margin * 2,
+                (int) Math.ceil(stroke) + margin * 2,
+                Bitmap.Config.ALPHA_8);
+
+        // Render the shape
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(stroke);
+        paint.setMaskFilter(ScToggleButton.mHighLightEffect);
+
+        float middle = margin + stroke / 2;
+        new Canvas(bitmap).drawLine(margin, middle, margin + length, middle, paint);
+
+        // Store
+        this.mLedGlow = bitmap;
+        this.mLedGlowLength = length;
+        this.mLedGlowStroke = stroke;
+        return bitmap;
+    }
+
     /**
      * Draw the text
      *
      * @param canvas where to draw
+     * @param width  the drawing width
+     * @param height the drawing height
      */
-    private void drawText(Canvas canvas) {
+    private void drawText(Canvas canvas, int width, int height) {
         // Choice the text
         String text = this.mText;
         if (this.isSelected() && this.mTextOn != null) text = this.mTextOn;
@@ -540,31 +921,22 @@ public class ScToggleButton extends View {
 
         // Check for empty values
         if (text != null && text.length() > 0) {
+            // Trace
+            boolean traced = ScTrace.begin("ScToggleButton.drawText", this, this.getGroup());
+
             // Get the drawing area
-            Rect area = new Rect(
+            Rect area = this.mTextArea;
+            area.set(
                     0 + this.getPaddingLeft(),
                     0 + this.getPaddingTop(),
-                    canvas.getWidth() - this.getPaddingRight(),
-                    canvas.getHeight() - this.getPaddingBottom()
+                    width - this.getPaddingRight(),
+                    height - this.getPaddingBottom()
             );
 
             // Setting the painter
+            this.mTextPaint.setTypeface(this.getTypeface());
+            this.mTextPaint.setTextSize(this.getDrawingFontSize(area.width(), area.height()));
             this.mTextPaint.setColor(this.choiceTextColor());
-            this.mTextPaint.setTextSize(this.mFontSize);
-
-            // Typeface
-            int style = Typeface.NORMAL;
-            if (this.mFontIsBold && this.mFontIsItalic)
-                style = Typeface.BOLD_ITALIC;
-            else {
-                if (this.mFontIsBold) style = Typeface.BOLD;
-                if (this.mFontIsItalic) style = Typeface.ITALIC;
-            }
-
-            Typeface typeFace = this.mFontFamily == null ?
-                    Typeface.create(Typeface.DEFAULT, style) :
-                    Typeface.create(this.mFontFamily, style);
-            this.mTextPaint.setTypeface(typeFace);
 
             // Find the alignment
             Layout.Alignment align = Layout.Alignment.ALIGN_CENTER;
@@ -577,22 +949,254 @@ public class ScToggleButton extends View {
                     break;
             }
 
-            // Create the text layout
-            StaticLayout staticLayout = new StaticLayout(
-                    this.mAllCaps ? text.toUpperCase() : text,
-                    this.mTextPaint,
-                    area.width(), align,
-                    1, 0, false
-            );
+            // Get the text layout
+            StaticLayout staticLayout = this.getTextLayout(text, area.width(), align);
 
             // Center and print
             canvas.save();
             canvas.translate(
-                    (canvas.getWidth() - staticLayout.getWidth()) / 2,
-                    (canvas.getHeight() - staticLayout.getHeight()) / 2);
+                    (width - staticLayout.getWidth()) / 2,
+                    (height - staticLayout.getHeight()) / 2);
             staticLayout.draw(canvas);
             canvas.restore();
+
+            ScTrace.end(traced);
+        }
+    }
+
+    /**
+     * Get the text layout creating it again only when the text, the width, the alignment
+     * or the painter font settings changed.
+     * The layout keep the reference to the text painter so the color can change freely.
+     *
+     * @param text  the text
+     * @param width the layout width
+     * @param align the alignment
+     * @return the layout
+     */
+    private StaticLayout getTextLayout(String text, int width, Layout.Alignment align) {
+        // Check if still valid
+        float size = this.mTextPaint.getTextSize();
+        Typeface typeface = this.mTextPaint.getTypeface();
+        if (this.mTextLayout != null &&
+                text.equals(this.mTextLayoutSource) &&
+                this.mTextLayoutCaps == this.mAllCaps &&
+                this.mTextLayoutWidth == width &&
+                this.mTextLayoutSize == size &&
+                this.mTextLayoutTypeface == typeface &&
+                this.mTextLayoutAlign == align)
+            return this.mTextLayout;
+
+        // Create
+        this.mTextLayout = new StaticLayout(
+                this.mAllCaps ? text.toUpperCase() : text,
+                this.mTextPaint,
+                width, align,
+                1, 0, false
+        );
+
+        // Store the settings
+        this.mTextLayoutSource = text;
+        this.mTextLayoutCaps = this.mAllCaps;
+        this.mTextLayoutWidth = width;
+        this.mTextLayoutSize = size;
+        this.mTextLayoutTypeface = typeface;
+        this.mTextLayoutAlign = align;
+        return this.mTextLayout;
+    }
+
+    /**
+     * Get the typeface creating it only when the font settings changed
+     *
+     * @return the typeface
+     */
+    private Typeface getTypeface() {
+        // Check if already created
+        if (this.mTypeface != null)
+            return this.mTypeface;
+
+        // Style
+        int style = Typeface.NORMAL;
+        if (this.mFontIsBold && this.mFontIsItalic)
+            style = Typeface.BOLD_ITALIC;
+        else {
+            if (this.mFontIsBold) style = Typeface.BOLD;
+            if (this.mFontIsItalic) style = Typeface.ITALIC;
+        }
+
+        // Create
+        this.mTypeface = this.mFontFamily == null ?
+                Typeface.create(Typeface.DEFAULT, style) :
+                Typeface.create(this.mFontFamily, style);
+        return this.mTypeface;
+    }
+
+    /**
+     * Get the font size to use for draw the text inside the passed area.
+     * If the auto size is disabled return the settled font size, else return the largest
+     * size that fit all the texts. The fitted size is searched only when the texts, the
+     * area or the font settings changed and the results are shared by all the instances.
+     *
+     * @param width  the text area width
+     * @param height the text area height
+     * @return the font size in pixel
+     */
+    private float getDrawingFontSize(int width, int height) {
+        // Check if needed
+        if (!this.mAutoSize)
+            return this.mFontSize;
+
+        // Check if the last fitted size is still valid
+        if (!this.mFittedDirty && this.mFittedWidth == width && this.mFittedHeight == height)
+            return this.mFittedFontSize;
+
+        // Trace
+        boolean traced = ScTrace.begin("ScToggleButton.fitText", this, this.getGroup());
+
+        // Find the size inside the cache or search it
+        String key = this.getFittedKey(width, height);
+        Float size = ScToggleButton.mFittedSizes.get(key);
+        if (size == null) {
+            size = this.searchFontSize(width, height);
+            ScToggleButton.mFittedSizes.put(key, size);
+        }
+
+        // Store
+        this.mFittedFontSize = size;
+        this.mFittedWidth = width;
+        this.mFittedHeight = height;
+        this.mFittedDirty = false;
+
+        ScTrace.end(traced);
+        return size;
+    }
+
+    /**
+     * Build the key that identify the fitted size inside the shared cache
+     *
+     * @param width  the text area width
+     * @param height the text area height
+     * @return the key
+     */
+    private String getFittedKey(int width, int height) {
+        return new StringBuilder()
+                .append(this.mText).append('\0')
+                .append(this.mTextOn).append('\0')
+                .append(this.mTextOff).append('\0')
+                .append(this.mAllCaps).append('|')
+                .append(width).append('x').append(height).append('|')
+                .append(this.mFontFamily).append('|')
+                .append(this.mFontIsBold).append('|')
+                .append(this.mFontIsItalic).append('|')
+                .append(this.mMinFontSize).append('|')
+                .append(this.mMaxFontSize).append('|')
+                .append(this.mFontSizeGranularity)
+                .toString();
+    }
+
+    /**
+     * Binary search the largest font size, multiple of the granularity starting from the
+     * minimum size, that fit all the texts inside the passed area.
+     *
+     * @param width  the text area width
+     * @param height the text area height
+     * @return the font size in pixel
+     */
+    private float searchFontSize(int width, int height) {
+        // Limits
+        float min = this.mMinFontSize;
+        float max = Math.max(min, this.mMaxFontSize);
+        float granularity = this.mFontSizeGranularity > 0 ? this.mFontSizeGranularity : 1;
+
+        // Search on the steps
+        int low = 0;
+        int high = (int) ((max - min) / granularity);
+        int found = 0;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.isFitting(min + middle * granularity, width, height)) {
+                found = middle;
+                low = middle + 1;
+            } else
+                high = middle - 1;
+        }
+
+        // The minimum size is used also if not fit
+        return min + found * granularity;
+    }
+
+    /**
+     * Check if all the texts fit inside the area using the passed font size
+     *
+     * @param size   the font size
+     * @param width  the text area width
+     * @param height the text area height
+     * @return true if fit
+     */
+    private boolean isFitting(float size, int width, int height) {
+        this.mTextPaint.setTypeface(this.getTypeface());
+        this.mTextPaint.setTextSize(size);
+
+        return this.isFitting(this.mText, width, height) &&
+                this.isFitting(this.mTextOn, width, height) &&
+                this.isFitting(this.mTextOff, width, height);
+    }
+
+    /**
+     * Check if a text fit inside the area using the current text painter settings.
+     * No one line must be wrapped and all the lines must be contained in the height.
+     *
+     * @param text   the text
+     * @param width  the text area width
+     * @param height the text area height
+     * @return true if fit
+     */
+    private boolean isFitting(String text, int width, int height) {
+        // Check for empty values
+        if (text == null || text.length() == 0)
+            return true;
+        if (this.mAllCaps)
+            text = text.toUpperCase();
+
+        // Check every line width
+        int lines = 0;
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end == -1) end = text.length();
+
+            if (this.mTextPaint.measureText(text, start, end) > width)
+                return false;
+
+            lines++;
+            start = end + 1;
         }
+
+        // Check the height
+        return lines * this.mTextPaint.getFontSpacing() <= height;
+    }
+
+    /**
+     * Invalidate the last fitted font size
+     */
+    private void invalidateFitting() {
+        this.mFittedDirty = true;
+    }
+
+    /**
+     * Draw the component content inside the passed dimensions starting from the canvas
+     * origin. The inherited classes can use this method to draw the content in any area.
+     *
+     * @param canvas where to draw
+     * @param width  the drawing width
+     * @param height the drawing height
+     */
+    protected void drawContent(Canvas canvas, int width, int height) {
+        this.initPainters();
+        this.drawBorder(canvas, width, height);
+        this.drawLed(canvas, width, height);
+        this.drawText(canvas, width, height);
     }
 
 
@@ -607,13 +1211,48 @@ public class ScToggleButton extends View {
      */
     @Override
     public boolean onTouchEvent(MotionEvent e) {
+        // Press feedback
+        if (this.isEnabled())
+            this.mRipple.onTouchEvent(e);
+
         // Single click
-        if (this.isEnabled() && this.mDetector.onTouchEvent(e))
+        if (this.isEnabled() && this.getDetector().onTouchEvent(e))
             this.setSelected(!this.isSelected());
 
         return true;
     }
 
+    /**
+     * Draw the press feedback over all the component content
+     *
+     * @param canvas to draw
+     */
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        this.mRipple.draw(canvas);
+    }
+
+    /**
+     * Manage the press feedback drawable
+     */
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who) || this.mRipple.verify(who);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        this.mRipple.setState(this.getDrawableState());
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        this.mRipple.jumpToCurrentState();
+    }
+
     /**
      * Draw the component by the settings
      *
@@ -621,10 +1260,13 @@ public class ScToggleButton extends View {
      */
     @Override
     protected void onDraw(Canvas canvas) {
+        // Trace
+        boolean traced = ScTrace.begin("ScToggleButton.onDraw", this, this.getGroup());
+
         // Custom
-        this.drawBorder(canvas);
-        this.drawLed(canvas);
-        this.drawText(canvas);
+        this.drawContent(canvas, this.getWidth(), this.getHeight());
+
+        ScTrace.end(traced);
     }
 
     /**
@@ -635,19 +1277,25 @@ public class ScToggleButton extends View {
      */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Trace
+        boolean traced = ScTrace.begin("ScToggleButton.onMeasure", this, this.getGroup());
+
         // Get suggested dimensions
         int width = View.getDefaultSize(this.getSuggestedMinimumWidth(), widthMeasureSpec);
         int height = View.getDefaultSize(this.getSuggestedMinimumHeight(), heightMeasureSpec);
 
         // If have some dimension to wrap will use the path boundaries for have the right
         // dimension summed to the global padding.
-        if (this.getLayoutParams().width == ViewGroup.LayoutParams.WRAP_CONTENT)
+        // The layout params not exists when measured outside a layout.
+        ViewGroup.LayoutParams params = this.getLayoutParams();
+        if (params != null && params.width == ViewGroup.LayoutParams.WRAP_CONTENT)
             width = Math.round(this.dipToPixel(ScToggleButton.MIN_WIDTH));
-        if (this.getLayoutParams().height == ViewGroup.LayoutParams.WRAP_CONTENT)
+        if (params != null && params.height == ViewGroup.LayoutParams.WRAP_CONTENT)
             height = Math.round(this.dipToPixel(ScToggleButton.MIN_HEIGHT));
 
         // Set the calculated dimensions
         this.setMeasuredDimension(width, height);
+        ScTrace.end(traced);
     }
 
     /**
@@ -659,6 +1307,9 @@ public class ScToggleButton extends View {
 
         // Remove this toggle buttons from the global buttons list
         ScToggleButton.mGlobalButtons.remove(this);
+
+        // Free the led glow, will be rendered again if needed
+        this.mLedGlow = null;
     }
 
     @Override
@@ -668,7 +1319,12 @@ public class ScToggleButton extends View {
         // Add this button at the global list of buttons
         if (!ScToggleButton.mGlobalButtons.contains(this)) {
             ScToggleButton.mGlobalButtons.add(this);
-            this.manageGroupSelection();
+
+            // A restored group will be reconciled once when all the buttons are attached
+            if (this.hasGroup() && ScToggleButton.isPendingGroup(this.getGroup()))
+                ScToggleButton.postGroupsReconcile();
+            else
+                this.manageGroupSelection();
         }
     }
 
@@ -695,6 +1351,11 @@ public class ScToggleButton extends View {
         state.putBoolean("mFontIsBold", this.mFontIsBold);
         state.putBoolean("mFontIsItalic", this.mFontIsItalic);
 
+        state.putBoolean("mAutoSize", this.mAutoSize);
+        state.putFloat("mMinFontSize", this.mMinFontSize);
+        state.putFloat("mMaxFontSize", this.mMaxFontSize);
+        state.putFloat("mFontSizeGranularity", this.mFontSizeGranularity);
+
         state.putFloat("mStrokeSize", this.mStrokeSize);
         state.putFloat("mCornerRadius", this.mCornerRadius);
         state.putInt("mFilling", this.mFilling.ordinal());
@@ -717,6 +1378,9 @@ public class ScToggleButton extends View {
         state.putBoolean("mOnlyOneSelected", this.mOnlyOneSelected);
         state.putBoolean("mSelected", this.mSelected);
 
+        state.putBoolean("mPressFeedback", this.mPressFeedback);
+        state.putInt("mRippleColor", this.mRippleColor);
+
         // Return the new state
         return state;
     }
@@ -741,6 +1405,12 @@ public class ScToggleButton extends View {
         this.mFontIsBold = savedState.getBoolean("mFontIsBold");
         this.mFontIsItalic = savedState.getBoolean("mFontIsItalic");
 
+        this.mAutoSize = savedState.getBoolean("mAutoSize");
+        this.mMinFontSize = savedState.getFloat("mMinFontSize");
+        this.mMaxFontSize = savedState.getFloat("mMaxFontSize");
+        this.mFontSizeGranularity = savedState.getFloat("mFontSizeGranularity");
+        this.mTypeface = null;
+
         this.mStrokeSize = savedState.getFloat("mStrokeSize");
         this.mCornerRadius = savedState.getFloat("mCornerRadius");
         this.mFilling = FillMode.values()[savedState.getInt("mFilling")];
@@ -762,7 +1432,19 @@ public class ScToggleButton extends View {
 
         this.mGroup = savedState.getString("mGroup");
         this.mOnlyOneSelected = savedState.getBoolean("mOnlyOneSelected");
-        this.mSelected = savedState.getBoolean("mSelected");
+        this.applySelectedQuietly(savedState.getBoolean("mSelected"));
+
+        this.mPressFeedback = savedState.getBoolean("mPressFeedback");
+        this.mRippleColor = savedState.getInt("mRippleColor");
+
+        // The group constraints will be checked when all the group is restored
+        if (this.hasGroup())
+            ScToggleButton.addPendingGroup(this.getGroup(),
+                    ScToggleButton.mGlobalButtons.contains(this));
+
+        // Refresh
+        this.invalidateFitting();
+        this.onStyleChanged();
     }
 
 
@@ -917,7 +1599,7 @@ public class ScToggleButton extends View {
     public void setFontSize(float value) {
         if (this.mFontSize != value && value > 0) {
             this.mFontSize = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -941,7 +1623,9 @@ public class ScToggleButton extends View {
     public void setFontFamily(String value) {
         if (!ScToggleButton.equals(this.mFontFamily, value)) {
             this.mFontFamily = value;
-            this.invalidate();
+            this.mTypeface = null;
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -965,7 +1649,9 @@ public class ScToggleButton extends View {
     public void setFontIsBold(boolean value) {
         if (this.mFontIsBold != value) {
             this.mFontIsBold = value;
-            this.invalidate();
+            this.mTypeface = null;
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -989,7 +1675,111 @@ public class ScToggleButton extends View {
     public void setFontIsItalic(boolean value) {
         if (this.mFontIsItalic != value) {
             this.mFontIsItalic = value;
-            this.invalidate();
+            this.mTypeface = null;
+            this.invalidateFitting();
+            this.onStyleChanged();
+        }
+    }
+
+
+    /**
+     * Get if the font size is auto fitted inside the component
+     *
+     * @return true if auto size
+     */
+    @SuppressWarnings("unused")
+    public boolean getAutoSize() {
+        return this.mAutoSize;
+    }
+
+    /**
+     * Set if the font size is auto fitted inside the component.
+     * The fitted size will be the largest between the minimum and the maximum size that
+     * fit all the texts.
+     *
+     * @param value true if auto size
+     */
+    @SuppressWarnings("unused")
+    public void setAutoSize(boolean value) {
+        if (this.mAutoSize != value) {
+            this.mAutoSize = value;
+            this.invalidateFitting();
+            this.onStyleChanged();
+        }
+    }
+
+
+    /**
+     * Get the minimum font size used by the auto size
+     *
+     * @return the size in pixel
+     */
+    @SuppressWarnings("unused")
+    public float getMinFontSize() {
+        return this.mMinFontSize;
+    }
+
+    /**
+     * Set the minimum font size used by the auto size
+     *
+     * @param value the new size in pixel
+     */
+    @SuppressWarnings("unused")
+    public void setMinFontSize(float value) {
+        if (this.mMinFontSize != value && value > 0) {
+            this.mMinFontSize = value;
+            this.invalidateFitting();
+            this.onStyleChanged();
+        }
+    }
+
+
+    /**
+     * Get the maximum font size used by the auto size
+     *
+     * @return the size in pixel
+     */
+    @SuppressWarnings("unused")
+    public float getMaxFontSize() {
+        return this.mMaxFontSize;
+    }
+
+    /**
+     * Set the maximum font size used by the auto size
+     *
+     * @param value the new size in pixel
+     */
+    @SuppressWarnings("unused")
+    public void setMaxFontSize(float value) {
+        if (this.mMaxFontSize != value && value > 0) {
+            this.mMaxFontSize = value;
+            this.invalidateFitting();
+            this.onStyleChanged();
+        }
+    }
+
+
+    /**
+     * Get the step between the sizes tried by the auto size
+     *
+     * @return the step in pixel
+     */
+    @SuppressWarnings("unused")
+    public float getFontSizeGranularity() {
+        return this.mFontSizeGranularity;
+    }
+
+    /**
+     * Set the step between the sizes tried by the auto size
+     *
+     * @param value the new step in pixel
+     */
+    @SuppressWarnings("unused")
+    public void setFontSizeGranularity(float value) {
+        if (this.mFontSizeGranularity != value && value > 0) {
+            this.mFontSizeGranularity = value;
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -1013,7 +1803,7 @@ public class ScToggleButton extends View {
     public void setStrokeSize(float value) {
         if (this.mStrokeSize != value && value > 0) {
             this.mStrokeSize = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1037,7 +1827,7 @@ public class ScToggleButton extends View {
     public void setCornerRadius(float value) {
         if (this.mCornerRadius != value && value > 0) {
             this.mCornerRadius = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1061,7 +1851,7 @@ public class ScToggleButton extends View {
     public void setFilling(FillMode value) {
         if (this.mFilling != value) {
             this.mFilling = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1085,7 +1875,8 @@ public class ScToggleButton extends View {
     public void setText(String value) {
         if (!ScToggleButton.equals(this.mText, value)) {
             this.mText = value;
-            this.invalidate();
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -1109,7 +1900,8 @@ public class ScToggleButton extends View {
     public void setTextOn(String value) {
         if (!ScToggleButton.equals(this.mTextOn, value)) {
             this.mTextOn = value;
-            this.invalidate();
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -1133,7 +1925,8 @@ public class ScToggleButton extends View {
     public void setTextOff(String value) {
         if (!ScToggleButton.equals(this.mTextOff, value)) {
             this.mTextOff = value;
-            this.invalidate();
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -1157,7 +1950,7 @@ public class ScToggleButton extends View {
     public void setTextAlign(TextAlign value) {
         if (this.mTextAlign != value) {
             this.mTextAlign = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1181,7 +1974,8 @@ public class ScToggleButton extends View {
     public void setAllCaps(boolean value) {
         if (this.mAllCaps != value) {
             this.mAllCaps = value;
-            this.invalidate();
+            this.invalidateFitting();
+            this.onStyleChanged();
         }
     }
 
@@ -1205,7 +1999,7 @@ public class ScToggleButton extends View {
     public void setOffColor(int value) {
         if (this.mOffColor != value) {
             this.mOffColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1229,7 +2023,7 @@ public class ScToggleButton extends View {
     public void setOnColor(int value) {
         if (this.mOnColor != value) {
             this.mOnColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1253,7 +2047,7 @@ public class ScToggleButton extends View {
     public void setLedOnColor(int value) {
         if (this.mLedOnColor != value) {
             this.mLedOnColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1277,7 +2071,7 @@ public class ScToggleButton extends View {
     public void setLedOffColor(int value) {
         if (this.mLedOffColor != value) {
             this.mLedOffColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1301,7 +2095,7 @@ public class ScToggleButton extends View {
     public void setTextOnColor(int value) {
         if (this.mTextOnColor != value) {
             this.mTextOnColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1325,7 +2119,7 @@ public class ScToggleButton extends View {
     public void setTextOffColor(int value) {
         if (this.mTextOffColor != value) {
             this.mTextOffColor = value;
-            this.invalidate();
+            this.onStyleChanged();
         }
     }
 
@@ -1399,9 +2193,56 @@ public class ScToggleButton extends View {
     public void setShowLed(boolean value) {
         if (this.mShowLed != value) {
             this.mShowLed = value;
-            this.invalidate();
+            this.onStyleChanged();
+        }
+    }
+
+
+    /**
+     * Get the press feedback status
+     *
+     * @return true if enabled
+     */
+    @SuppressWarnings("unused")
+    public boolean getPressFeedback() {
+        return this.mPressFeedback;
+    }
+
+    /**
+     * Enable or disable the press feedback ripple
+     *
+     * @param value true if enabled
+     */
+    @SuppressWarnings("unused")
+    public void setPressFeedback(boolean value) {
+        if (this.mPressFeedback != value) {
+            this.mPressFeedback = value;
+            this.onStyleChanged();
         }
     }
 
 
+    /**
+     * Get the press feedback ripple color
+     *
+     * @return the color
+     */
+    @SuppressWarnings("unused")
+    public int getRippleColor() {
+        return this.mRippleColor;
+    }
+
+    /**
+     * Set the press feedback ripple color
+     *
+     * @param value the color
+     */
+    @SuppressWarnings("unused")
+    public void setRippleColor(int value) {
+        if (this.mRippleColor != value) {
+            this.mRippleColor = value;
+            this.onStyleChanged();
+        }
+    }
+
 }
@@ -0,0 +1,219 @@
+package com.sccomponents.buttons;
+
+import android.annotation.TargetApi;
+import android.content.res.Resources;
+import android.os.Build;
+import android.os.Trace;
+import android.view.View;
+
+import java.lang.reflect.Method;
+
+/**
+ * Optional system trace sections emitted from the components hot paths.
+ * When disabled every call cost just a static boolean check and no section name
+ * will be created.
+ */
+
+public final class ScTrace {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static final int MAX_SECTION_LENGTH = 127;
+
+    private static volatile boolean mEnabled = false;
+
+    private static boolean mAsyncResolved = false;
+    private static Method mBeginAsyncSection = null;
+    private static Method mEndAsyncSection = null;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScTrace() {
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Build the section name adding the component id and the group name when exists.
+     *
+     * @param method the traced method name
+     * @param view   the source component
+     * @param group  the group name, can be null
+     * @return the section name
+     */
+    private static String buildName(String method, View view, String group) {
+        // Start from the method
+        StringBuilder builder = new StringBuilder(method);
+
+        // Id
+        int id = view != null ? view.getId() : View.NO_ID;
+        if (id != View.NO_ID) {
+            builder.append(" id=");
+            try {
+                builder.append(view.getResources().getResourceEntryName(id));
+            } catch (Resources.NotFoundException ex) {
+                builder.append(Integer.toHexString(id));
+            }
+        }
+
+        // Group
+        if (group != null && group.length() > 0)
+            builder.append(" group=").append(group);
+
+        // The system limit the section name length
+        if (builder.length() > ScTrace.MAX_SECTION_LENGTH)
+            builder.setLength(ScTrace.MAX_SECTION_LENGTH);
+        return builder.toString();
+    }
+
+    /**
+     * Resolve the async section methods.
+     * The public async API exists only from Android Q so we must find it by reflection.
+     */
+    private static synchronized void resolveAsync() {
+        // Check if already done
+        if (ScTrace.mAsyncResolved)
+            return;
+        ScTrace.mAsyncResolved = true;
+
+        // Only if exists
+        if (Build.VERSION.SDK_INT >= 29)
+            try {
+                ScTrace.mBeginAsyncSection = Trace.class
+                        .getMethod("beginAsyncSection", String.class, int.class);
+                ScTrace.mEndAsyncSection = Trace.class
+                        .getMethod("endAsyncSection", String.class, int.class);
+
+            } catch (Exception ex) {
+                ScTrace.mBeginAsyncSection = null;
+                ScTrace.mEndAsyncSection = null;
+            }
+    }
+
+    /**
+     * Invoke an async section method.
+     *
+     * @param method the method to call
+     * @param name   the section name
+     * @param cookie the section cookie
+     */
+    private static void invokeAsync(Method method, String name, int cookie) {
+        if (method != null)
+            try {
+                method.invoke(null, name, cookie);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Check if the tracing is enabled
+     *
+     * @return true if enabled
+     */
+    @SuppressWarnings("unused")
+    public static boolean isEnabled() {
+        return ScTrace.mEnabled;
+    }
+
+    /**
+     * Enable or disable the tracing.
+     * The system trace sections are available only from Android 4.3.
+     *
+     * @param value true to enable
+     */
+    @SuppressWarnings("unused")
+    public static void setEnabled(boolean value) {
+        ScTrace.mEnabled = value && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * Begin a trace section.
+     * Must be closed by the {@link #end(boolean)} method on the same thread passing the
+     * returned value.
+     *
+     * @param method the traced method name
+     * @param view   the source component
+     * @param group  the group name, can be null
+     * @return true if the section was opened
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static boolean begin(String method, View view, String group) {
+        // Check for disabled
+        if (!ScTrace.mEnabled)
+            return false;
+
+        // Open the section
+        Trace.beginSection(ScTrace.buildName(method, view, group));
+        return true;
+    }
+
+    /**
+     * Begin a trace section.
+     *
+     * @param method the traced method name
+     * @param view   the source component
+     * @return true if the section was opened
+     */
+    static boolean begin(String method, View view) {
+        return ScTrace.begin(method, view, null);
+    }
+
+    /**
+     * Close the last opened trace section
+     *
+     * @param begun the value returned from the begin method
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static void end(boolean begun) {
+        if (begun)
+            Trace.endSection();
+    }
+
+    /**
+     * Begin an async trace slice.
+     * Async slices can start and end on different threads and are keyed by the component.
+     * Available only from Android Q.
+     *
+     * @param method the traced operation name
+     * @param view   the source component
+     * @return the section name to pass on the {@link #endAsync(String, View)} method or
+     * null if not opened
+     */
+    static String beginAsync(String method, View view) {
+        // Check for disabled
+        if (!ScTrace.mEnabled)
+            return null;
+
+        // Find the methods
+        ScTrace.resolveAsync();
+        if (ScTrace.mBeginAsyncSection == null)
+            return null;
+
+        // Open the section
+        String name = ScTrace.buildName(method, view, null);
+        ScTrace.invokeAsync(ScTrace.mBeginAsyncSection, name, System.identityHashCode(view));
+        return name;
+    }
+
+    /**
+     * Close an async trace slice
+     *
+     * @param name the value returned from the begin method
+     * @param view the source component
+     */
+    static void endAsync(String name, View view) {
+        if (name != null)
+            ScTrace.invokeAsync(ScTrace.mEndAsyncSection, name, System.identityHashCode(view));
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.sccomponents.buttons;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free triple buffer used to pass the wave form data from the capture thread to the
+ * UI thread.
+ * The writer fill its own back buffer and publish it swapping it with the middle buffer by
+ * a single atomic operation, the reader take the middle buffer only if a new one was
+ * published swapping it with its own front buffer. So the reader always see a complete
+ * frame, neither side wait for the other and the buffers are allocated only when the
+ * requested length grow.
+ * NOTE that only one writer thread and one reader thread are allowed.
+ */
+
+final class ScWaveBuffer {
+
+    // ***************************************************************************************
+    // Constants
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int DIRTY = 0x4;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    private final float[][] mBuffers = new float[3][];
+    private final int[] mLengths = new int[3];
+
+    // The middle buffer index and the dirty flag
+    private final AtomicInteger mState = new AtomicInteger(1);
+
+    // Owned by the writer
+    private int mBack = 0;
+
+    // Owned by the reader
+    private int mFront = 2;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    ScWaveBuffer(int capacity) {
+        for (int index = 0; index < this.mBuffers.length; index++)
+            this.mBuffers[index] = new float[capacity];
+    }
+
+
+    // ***************************************************************************************
+    // Writer methods
+
+    /**
+     * Get the back buffer to fill.
+     * The buffer is allocated again only if smaller than the requested length.
+     *
+     * @param length the values number to write
+     * @return the buffer
+     */
+    float[] getWriteBuffer(int length) {
+        if (this.mBuffers[this.mBack].length < length)
+            this.mBuffers[this.mBack] = new float[length];
+        return this.mBuffers[this.mBack];
+    }
+
+    /**
+     * Publish the back buffer as the last complete frame
+     *
+     * @param length the values number written
+     */
+    void publish(int length) {
+        this.mLengths[this.mBack] = length;
+        int previous = this.mState.getAndSet(this.mBack | ScWaveBuffer.DIRTY);
+        this.mBack = previous & ScWaveBuffer.INDEX_MASK;
+    }
+
+
+    // ***************************************************************************************
+    // Reader methods
+
+    /**
+     * Take the last published frame if exists.
+     * If nothing was published after the last call the front buffer is not changed.
+     *
+     * @return true if the front buffer changed
+     */
+    boolean acquire() {
+        // Check for a new frame
+        if ((this.mState.get() & ScWaveBuffer.DIRTY) == 0)
+            return false;
+
+        int previous = this.mState.getAndSet(this.mFront);
+        this.mFront = previous & ScWaveBuffer.INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Get the front buffer
+     *
+     * @return the buffer
+     */
+    float[] getReadBuffer() {
+        return this.mBuffers[this.mFront];
+    }
+
+    /**
+     * Get the values number of the front buffer
+     *
+     * @return the length, zero if nothing was published
+     */
+    int getReadLength() {
+        return this.mLengths[this.mFront];
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.sccomponents.buttons;
+
+import android.media.audiofx.Visualizer;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+/**
+ * Capture the wave form of an audio session on a dedicated thread.
+ * The visualizer deliver the captured data by an handler on the looper of the thread that
+ * set its listener, so the visualizer is created, configured and released on a shared
+ * capture thread and the captured data never pass by the main thread.
+ * All the native calls are posted on the capture thread so the caller never wait for them.
+ * NOTE that the captures must be started and released from the main thread only.
+ */
+
+final class ScWaveCapture {
+
+    // ***************************************************************************************
+    // Constants and statics
+
+    private static HandlerThread mThread = null;
+    private static Handler mHandler = null;
+
+
+    // ***************************************************************************************
+    // Privates variable
+
+    // Used only by the capture thread
+    private Visualizer mVisualizer = null;
+    private boolean mReleased = false;
+
+
+    // ***************************************************************************************
+    // Constructors
+
+    private ScWaveCapture() {
+    }
+
+
+    // ***************************************************************************************
+    // Privates methods
+
+    /**
+     * Get the capture thread handler starting the thread the first time.
+     * The thread is kept alive and wait without cost when nothing is captured.
+     *
+     * @return the handler
+     */
+    private static Handler getHandler() {
+        if (ScWaveCapture.mHandler == null) {
+            ScWaveCapture.mThread = new HandlerThread("ScWaveCapture");
+            ScWaveCapture.mThread.start();
+            ScWaveCapture.mHandler = new Handler(ScWaveCapture.mThread.getLooper());
+        }
+        return ScWaveCapture.mHandler;
+    }
+
+    /**
+     * Create and enable the visualizer.
+     * Called on the capture thread so the data will be delivered on it.
+     *
+     * @param session     the audio session id
+     * @param captureSize the capture size
+     * @param rate        the capture rate in milliHertz
+     * @param listener    the listener
+     */
+    private void open(int session, int captureSize, int rate, final OnCaptureListener listener) {
+        // Check if already released
+        if (this.mReleased)
+            return;
+
+        try {
+            // Create
+            this.mVisualizer = new Visualizer(session);
+            this.mVisualizer.setCaptureSize(captureSize);
+            this.mVisualizer.setDataCaptureListener(new Visualizer.OnDataCaptureListener() {
+                @Override
+                public void onWaveFormDataCapture(Visualizer visualizer,
+                                                  byte[] bytes,
+                                                  int samplingRate) {
+                    listener.onCapture(bytes);
+                }
+
+                @Override
+                public void onFftDataCapture(
+                        Visualizer visualizer,
+                        byte[] bytes,
+                        int samplingRate) {
+                    // NOP
+                }
+
+            }, rate, true, false);
+
+            // Start
+            this.mVisualizer.setEnabled(true);
+
+        } catch (Exception ex) {
+            // Print the error on the stack
+            ex.printStackTrace();
+
+            this.close();
+            listener.onFailed();
+        }
+    }
+
+    /**
+     * Disable and release the visualizer.
+     * Called on the capture thread.
+     */
+    private void close() {
+        this.mReleased = true;
+        if (this.mVisualizer == null)
+            return;
+
+        try {
+            this.mVisualizer.setEnabled(false);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        this.mVisualizer.release();
+        this.mVisualizer = null;
+    }
+
+
+    // ***************************************************************************************
+    // Public methods
+
+    /**
+     * Start to capture the wave form of an audio session.
+     * The listener is called on the capture thread.
+     *
+     * @param session     the audio session id
+     * @param captureSize the capture size
+     * @param rate        the capture rate in milliHertz
+     * @param listener    the listener
+     * @return the capture
+     */
+    static ScWaveCapture start(final int session, final int captureSize, final int rate,
+                               final OnCaptureListener listener) {
+        final ScWaveCapture capture = new ScWaveCapture();
+        ScWaveCapture.getHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                capture.open(session, captureSize, rate, listener);
+            }
+        });
+        return capture;
+    }
+
+    /**
+     * Stop the capture and release the visualizer.
+     * NOTE that the listener can still be called until the release is executed on the
+     * capture thread.
+     */
+    void release() {
+        ScWaveCapture.getHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                ScWaveCapture.this.close();
+            }
+        });
+    }
+
+
+    // *******************************************************************************************
+    // Public listener and interface
+
+    /**
+     * Capture listener
+     */
+    interface OnCaptureListener {
+
+        /**
+         * Called on the capture thread when a new wave form is captured
+         *
+         * @param data the captured data
+         */
+        void onCapture(byte[] data);
+
+        /**
+         * Called on the capture thread if the visualizer cannot be started
+         */
+        void onFailed();
+
+    }
+
+}